@@ -0,0 +1,76 @@
+package com.aaron.wardrobe.benchmark;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.metrics.PipelineMetrics;
+import com.aaron.wardrobe.recommendation.customization.OutfitCustomizer;
+import com.aaron.wardrobe.recommendation.customization.RuleRegistry;
+import com.aaron.wardrobe.recommendation.customization.RuleSet;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures OutfitCustomizer.customizeOutfit on pre-filtered options, for both optimizer modes
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomizeOutfitBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int itemsPerType;
+
+    @Param({ "greedy", "search" })
+    public String mode;
+
+    private OutfitCustomizer customizer;
+    private Map<String, List<ClothingItem>> options;
+
+    @Setup
+    public void setUp() throws IOException {
+        customizer = createCustomizer(mode);
+        List<ClothingItem> items = SyntheticWardrobe.generate(RuleSet.loadFromClasspath().getVocabulary(), itemsPerType, 42);
+        options = SyntheticWardrobe.optionsFor(items, "casual");
+    }
+
+    @Benchmark
+    public List<ClothingItem> customizeOutfit() {
+        return customizer.customizeOutfit(options, 58, "cloudy");
+    }
+
+    static final PipelineMetrics DISABLED_METRICS = new PipelineMetrics(new SimpleMeterRegistry(), false, false);
+
+    /**
+     * Creates an initialized OutfitCustomizer with the default settings from application.properties
+     */
+    static OutfitCustomizer createCustomizer(String mode) {
+        return createCustomizer(mode, 8192);
+    }
+
+    /**
+     * Same as createCustomizer(mode), scoring slots with at least parallelThreshold options in parallel
+     */
+    static OutfitCustomizer createCustomizer(String mode, int parallelThreshold) {
+        OutfitCustomizer customizer = new OutfitCustomizer();
+        ReflectionTestUtils.setField(customizer, "mode", mode);
+        ReflectionTestUtils.setField(customizer, "beamWidth", 16);
+        ReflectionTestUtils.setField(customizer, "timeBudget", Duration.ofMillis(25));
+        ReflectionTestUtils.setField(customizer, "metrics", DISABLED_METRICS);
+        ReflectionTestUtils.setField(customizer, "ruleRegistry", new RuleRegistry("", false, true));
+        ReflectionTestUtils.setField(customizer, "parallelThreshold", parallelThreshold);
+        ReflectionTestUtils.setField(customizer, "parallelLeafSize", 2048);
+        customizer.init();
+        return customizer;
+    }
+}
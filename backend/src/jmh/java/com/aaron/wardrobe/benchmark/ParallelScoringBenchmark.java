@@ -0,0 +1,53 @@
+package com.aaron.wardrobe.benchmark;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.recommendation.customization.OutfitCustomizer;
+import com.aaron.wardrobe.recommendation.customization.RuleSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one greedy outfit with every slot scored sequentially against every slot scored on the fork-join
+ * pool, to find the candidate count above which parallel scoring pays off (recommendation.scoring.parallel-threshold).
+ * A slot holds about two thirds of itemsPerType options, the ones matching the formality or "any".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelScoringBenchmark {
+
+    @Param({ "1000", "3000", "6000", "12000", "25000", "50000" })
+    public int itemsPerType;
+
+    @Param({ "sequential", "parallel" })
+    public String scoring;
+
+    private OutfitCustomizer customizer;
+    private Map<String, List<ClothingItem>> options;
+
+    @Setup
+    public void setUp() throws IOException {
+        customizer = CustomizeOutfitBenchmark.createCustomizer("greedy",
+            "parallel".equals(scoring) ? 0 : Integer.MAX_VALUE);
+        List<ClothingItem> items = SyntheticWardrobe.generate(RuleSet.loadFromClasspath().getVocabulary(), itemsPerType, 42);
+        options = SyntheticWardrobe.optionsFor(items, "casual");
+    }
+
+    @TearDown
+    public void tearDown() {
+        customizer.shutdown();
+    }
+
+    @Benchmark
+    public List<ClothingItem> customizeOutfit() {
+        return customizer.customizeOutfit(options, 58, "cloudy");
+    }
+}
@@ -0,0 +1,58 @@
+package com.aaron.wardrobe.benchmark;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.recommendation.RecommendOutfitService;
+import com.aaron.wardrobe.recommendation.RecommendationEventLog;
+import com.aaron.wardrobe.recommendation.RecommendationMemo;
+import com.aaron.wardrobe.recommendation.customization.RuleRegistry;
+import com.aaron.wardrobe.recommendation.customization.RuleSet;
+import com.aaron.wardrobe.user.User;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures RecommendOutfitService.recommendOutfit end to end (filtering, option building and customizing) with
+ * the wardrobe served from memory, so the database and the weather provider are left out. With memo=true every
+ * call after the first is answered from the RecommendationMemo ranking.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecommendOutfitBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int itemsPerType;
+
+    @Param({ "greedy", "search" })
+    public String mode;
+
+    @Param({ "false", "true" })
+    public boolean memo;
+
+    private RecommendOutfitService service;
+    private final User user = new User(1L, "benchmark", "", null);
+
+    @Setup
+    public void setUp() throws IOException {
+        List<ClothingItem> items = SyntheticWardrobe.generate(RuleSet.loadFromClasspath().getVocabulary(), itemsPerType, 42);
+        service = new RecommendOutfitService(new StubClothingItemService(items),
+            CustomizeOutfitBenchmark.createCustomizer(mode), null, new SyncTaskExecutor(),
+            CustomizeOutfitBenchmark.DISABLED_METRICS,
+            new RecommendationMemo(new RuleRegistry("", false, true), memo, 2, 5, Duration.ofMinutes(10), 10000),
+            new RecommendationEventLog(null, false, 0, 1, Duration.ofSeconds(1)), Duration.ofSeconds(3));
+    }
+
+    @Benchmark
+    public List<ClothingItem> recommendOutfit() {
+        return service.recommendOutfit(user, 58, "casual", "cloudy");
+    }
+}
@@ -0,0 +1,30 @@
+package com.aaron.wardrobe.benchmark;
+
+import com.aaron.wardrobe.recommendation.customization.RuleSet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the two ways rules are loaded at startup: reading and compiling the four rule CSVs, and reading the
+ * precompiled rules.bin bundle (including the checksum of the CSVs it is checked against)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleLoadingBenchmark {
+
+    @Benchmark
+    public RuleSet loadRules() throws IOException {
+        return RuleSet.loadFromClasspath();
+    }
+
+    @Benchmark
+    public RuleSet loadBundle() throws IOException {
+        return RuleSet.loadBundleFromClasspath(1);
+    }
+}
@@ -0,0 +1,112 @@
+package com.aaron.wardrobe.benchmark;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.recommendation.customization.RuleSet;
+import com.aaron.wardrobe.recommendation.customization.RuleVocabulary;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each scorer over a whole synthetic wardrobe against a fixed partial outfit. One operation scores
+ * every item once, so divide by 5 * itemsPerType for the per-item rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int itemsPerType;
+
+    private RuleSet rules;
+    private List<ClothingItem> items;
+    private int[] subtypeIds;
+    private int[] colorIds;
+
+    private final int[] outfitSubtypeIds = new int[3];
+    private final int[] outfitColorIds = new int[3];
+    private int weatherId;
+    private final double temperature = 58;
+
+    @Setup
+    public void setUp() throws IOException {
+        rules = RuleSet.loadFromClasspath();
+        RuleVocabulary vocabulary = rules.getVocabulary();
+        items = SyntheticWardrobe.generate(vocabulary, itemsPerType, 42);
+
+        subtypeIds = new int[items.size()];
+        colorIds = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            subtypeIds[i] = vocabulary.subtypeId(items.get(i).getSubtype());
+            colorIds[i] = vocabulary.colorId(items.get(i).getColor());
+        }
+
+        String[][] outfit = { { "hoodie", "navy-blue" }, { "jeans", "blue" }, { "sneakers", "white" } };
+        for (int i = 0; i < outfit.length; i++) {
+            outfitSubtypeIds[i] = vocabulary.subtypeId(outfit[i][0]);
+            outfitColorIds[i] = vocabulary.colorId(outfit[i][1]);
+        }
+        weatherId = vocabulary.weatherId("cloudy");
+    }
+
+    @Benchmark
+    public int compatibility() {
+        int sum = 0;
+        for (int subtypeId : subtypeIds) {
+            sum += rules.getScoreByCompatibility().score(subtypeId, outfitSubtypeIds, outfitSubtypeIds.length);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int color() {
+        int sum = 0;
+        for (int colorId : colorIds) {
+            sum += rules.getScoreByColor().score(colorId, outfitColorIds, outfitColorIds.length);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int weather() {
+        int sum = 0;
+        for (int subtypeId : subtypeIds) {
+            sum += rules.getScoreByWeather().score(subtypeId, weatherId);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int temperature() {
+        int sum = 0;
+        for (int subtypeId : subtypeIds) {
+            sum += rules.getScoreByTemperature().score(subtypeId, temperature);
+        }
+        return sum;
+    }
+
+    /**
+     * All four scorers, including resolving each item's subtype and color to ids as OutfitCustomizer does
+     */
+    @Benchmark
+    public int allScorersFromItems() {
+        RuleVocabulary vocabulary = rules.getVocabulary();
+        int sum = 0;
+        for (ClothingItem item : items) {
+            int subtypeId = vocabulary.subtypeId(item.getSubtype());
+            int colorId = vocabulary.colorId(item.getColor());
+            sum += rules.getScoreByTemperature().score(subtypeId, temperature)
+                + rules.getScoreByCompatibility().score(subtypeId, outfitSubtypeIds, outfitSubtypeIds.length)
+                + rules.getScoreByColor().score(colorId, outfitColorIds, outfitColorIds.length)
+                + rules.getScoreByWeather().score(subtypeId, weatherId);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,50 @@
+package com.aaron.wardrobe.benchmark;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.clothingItem.ClothingItemService;
+import com.aaron.wardrobe.clothingItem.WardrobeIndex;
+import com.aaron.wardrobe.user.User;
+
+import java.util.*;
+
+/**
+ * Serves one in-memory wardrobe in place of the database. Like the real service, the index for a formality holds
+ * the matching and "any" items, plus every item of a required type that has no match.
+ */
+class StubClothingItemService extends ClothingItemService {
+
+    private final List<ClothingItem> items;
+    private final Map<String, WardrobeIndex> indexes = new HashMap<>();
+
+    StubClothingItemService(List<ClothingItem> items) {
+        super(1);
+        this.items = items;
+    }
+
+    @Override
+    public WardrobeIndex getWardrobeIndex(User user, String formality, Collection<String> types,
+            Collection<String> requiredTypes) {
+        return indexes.computeIfAbsent(formality, f -> {
+            List<ClothingItem> matching = new ArrayList<>();
+            Set<String> unmatchedRequiredTypes = new HashSet<>(requiredTypes);
+            for (ClothingItem item : items) {
+                if (types.contains(item.getType()) && (f.equals(item.getFormality()) || "any".equals(item.getFormality()))) {
+                    matching.add(item);
+                    unmatchedRequiredTypes.remove(item.getType());
+                }
+            }
+            for (ClothingItem item : items) {
+                if (unmatchedRequiredTypes.contains(item.getType())) {
+                    matching.add(item);
+                }
+            }
+            return new WardrobeIndex(1, matching);
+        });
+    }
+
+    @Override
+    public long getWardrobeVersion(User user) {
+        // the wardrobe never changes
+        return 1;
+    }
+}
@@ -0,0 +1,78 @@
+package com.aaron.wardrobe.benchmark;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.recommendation.customization.RuleVocabulary;
+
+import java.util.*;
+
+/**
+ * Generates reproducible wardrobes for the benchmarks. Subtypes and colors are drawn from the vocabulary of the
+ * bundled rule CSVs, and each subtype is filed under its type as listed in the README.
+ */
+public final class SyntheticWardrobe {
+
+    static final Map<String, String> TYPE_BY_SUBTYPE = new LinkedHashMap<>();
+    static {
+        for (String subtype : List.of("cap", "beanie")) TYPE_BY_SUBTYPE.put(subtype, "headwear");
+        for (String subtype : List.of("t-shirt", "long-sleeve", "hoodie", "button-up", "polo")) TYPE_BY_SUBTYPE.put(subtype, "top");
+        for (String subtype : List.of("jacket", "puffer", "flannel", "vest", "windbreaker")) TYPE_BY_SUBTYPE.put(subtype, "outerwear");
+        for (String subtype : List.of("athletic-shorts", "sweat-shorts", "jorts", "cargo-shorts", "jeans", "sweatpants",
+                "cargo-pants", "trousers", "khakis", "chinos", "leggings")) TYPE_BY_SUBTYPE.put(subtype, "bottom");
+        for (String subtype : List.of("sneakers", "running-shoes", "loafers", "heels", "sandals", "slides", "boots",
+                "winter-boots")) TYPE_BY_SUBTYPE.put(subtype, "footwear");
+    }
+
+    static final List<String> FORMALITIES = List.of("casual", "formal", "any");
+
+    private SyntheticWardrobe() {
+    }
+
+    /**
+     * @param vocabulary is the vocabulary of the loaded rule tables
+     * @param itemsPerType is how many items of each of the five types to generate
+     * @param seed makes the wardrobe reproducible
+     * @return the generated items, with ids starting at 1
+     */
+    public static List<ClothingItem> generate(RuleVocabulary vocabulary, int itemsPerType, long seed) {
+        Map<String, List<String>> subtypesByType = new LinkedHashMap<>();
+        for (int id = 0; id < vocabulary.subtypeCount(); id++) {
+            String subtype = vocabulary.subtypeName(id);
+            String type = TYPE_BY_SUBTYPE.get(subtype);
+            if (type != null) {
+                subtypesByType.computeIfAbsent(type, t -> new ArrayList<>()).add(subtype);
+            }
+        }
+        List<String> colors = new ArrayList<>(List.of("black", "white", "grey"));
+        for (int id = 0; id < vocabulary.colorCount(); id++) {
+            colors.add(vocabulary.colorName(id));
+        }
+
+        Random random = new Random(seed);
+        List<ClothingItem> items = new ArrayList<>(itemsPerType * subtypesByType.size());
+        long nextId = 1;
+        for (Map.Entry<String, List<String>> entry : subtypesByType.entrySet()) {
+            List<String> subtypes = entry.getValue();
+            for (int i = 0; i < itemsPerType; i++) {
+                String subtype = subtypes.get(random.nextInt(subtypes.size()));
+                String color = colors.get(random.nextInt(colors.size()));
+                String formality = FORMALITIES.get(random.nextInt(FORMALITIES.size()));
+                items.add(new ClothingItem(nextId, subtype + "-" + nextId, entry.getKey(), subtype, color, formality));
+                nextId++;
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Groups the items RecommendOutfitService would offer for the given formality by type
+     */
+    public static Map<String, List<ClothingItem>> optionsFor(List<ClothingItem> items, String formality) {
+        Map<String, List<ClothingItem>> options = new HashMap<>();
+        for (ClothingItem item : items) {
+            if (formality.equals(item.getFormality()) || "any".equals(item.getFormality())) {
+                options.computeIfAbsent(item.getType(), type -> new ArrayList<>()).add(item);
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,363 @@
+package com.aaron.wardrobe.loadtest;
+
+import com.aaron.wardrobe.WardrobeApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the application on an in-memory H2 database with WeatherApiStub standing in for WeatherAPI, seeds
+ * synthetic users and wardrobes through /register and /clothes/import, then drives each scenario with a fixed
+ * number of closed-loop clients (each sends its next request as soon as the previous one completes).
+ *
+ * Scenarios:
+ *   recommend  GET /recommend/{formality}/{city} for a random seeded user, formality and city
+ *   clothes    GET /clothes?limit=100 for a random seeded user
+ *   register   POST /register with a new username every time
+ *
+ * Every scenario runs a warmup that is not recorded before it is measured. p50/p90/p99 latency, throughput and
+ * error rate of each scenario are printed and written as JSON to --output so runs can be compared, along with
+ * whether the application ran on virtual or platform threads and the peak number of platform threads.
+ */
+public class LoadTest {
+
+    private static final Map<String, List<String>> SUBTYPES_BY_TYPE = Map.of(
+        "headwear", List.of("cap", "beanie"),
+        "top", List.of("t-shirt", "long-sleeve", "hoodie", "button-up", "polo"),
+        "outerwear", List.of("jacket", "puffer", "flannel", "vest", "windbreaker"),
+        "bottom", List.of("athletic-shorts", "sweat-shorts", "jorts", "cargo-shorts", "jeans", "sweatpants",
+            "cargo-pants", "trousers", "khakis", "chinos", "leggings"),
+        "footwear", List.of("sneakers", "running-shoes", "loafers", "heels", "sandals", "slides", "boots", "winter-boots")
+    );
+    private static final List<String> TYPES = List.of("headwear", "top", "outerwear", "bottom", "footwear");
+    private static final List<String> COLORS = List.of("black", "white", "grey", "brown", "pink", "maroon", "cyan",
+        "olive", "cream", "navy-blue", "sky-blue", "lavender", "red", "blue", "yellow", "gold", "orange", "green", "purple");
+    private static final List<String> FORMALITIES = List.of("casual", "formal", "any");
+    private static final String PASSWORD = "load-test-password";
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong registrations = new AtomicLong();
+    private String[] authorizations;
+
+    private LoadTest(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(Math.max(2, options.getConcurrency() / 4), daemon("load-client")))
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        WeatherApiStub weather = WeatherApiStub.start(options.getWeatherLatency());
+
+        // command line arguments take precedence over application.properties
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(WardrobeApplication.class)
+            .run(applicationArguments(options, weather));
+        try {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            LoadTest test = new LoadTest(options, "http://127.0.0.1:" + port);
+
+            long seedStart = System.nanoTime();
+            test.seed();
+            double seedSeconds = (System.nanoTime() - seedStart) / 1e9;
+            System.out.printf("Seeded %d users with %d items each in %.1fs%n", options.getUsers(), options.getItemsPerUser(), seedSeconds);
+
+            List<ScenarioResult> results = new ArrayList<>();
+            for (String scenario : options.getScenarios()) {
+                test.run(scenario, options.getWarmup());
+                ScenarioResult result = test.run(scenario, options.getDuration());
+                System.out.printf("%-10s %8.1f req/s  p50 %7.2fms  p90 %7.2fms  p99 %7.2fms  max %8.2fms  errors %.2f%%%n",
+                    result.getName(), result.getThroughput(), result.getP50Millis(), result.getP90Millis(),
+                    result.getP99Millis(), result.getMaxMillis(), result.getErrorRate() * 100);
+                results.add(result);
+            }
+
+            String threads = Threading.VIRTUAL.isActive(app.getEnvironment()) ? "virtual" : "platform";
+            int peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+            System.out.printf("Ran on %s threads, peak of %d platform threads%n", threads, peakThreads);
+            writeResults(options, seedSeconds, weather.getRequests(), results, threads, peakThreads);
+        } finally {
+            app.close();
+            weather.stop();
+        }
+        System.exit(0);
+    }
+
+    private static String[] applicationArguments(LoadTestOptions options, WeatherApiStub weather) {
+        List<String> arguments = new ArrayList<>(List.of(
+            "--server.port=" + options.getPort(),
+            "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.show-sql=false",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN",
+            "--security.token.secret=" + UUID.randomUUID() + UUID.randomUUID(),
+            "--weather.provider=weatherapi",
+            "--weather.api.base-url=" + weather.getBaseUrl(),
+            "--weather.api.key=load-test"
+        ));
+        options.getApp().forEach((name, value) -> arguments.add("--" + name + "=" + value));
+        return arguments.toArray(String[]::new);
+    }
+
+    /**
+     * Registers the users, imports a random wardrobe for each and, for bearer auth, logs each of them in
+     */
+    private void seed() throws Exception {
+        authorizations = new String[options.getUsers()];
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(options.getConcurrency(), options.getUsers()), daemon("seed"));
+        try {
+            List<Future<?>> seeded = new ArrayList<>();
+            for (int i = 0; i < options.getUsers(); i++) {
+                int user = i;
+                seeded.add(pool.submit(() -> {
+                    seedUser(user);
+                    return null;
+                }));
+            }
+            for (Future<?> future : seeded) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void seedUser(int user) throws IOException, InterruptedException {
+        String username = "load-" + runId + "-" + user;
+        expectOk(send(post("/register", json(Map.of("username", username, "password", PASSWORD)), null)), "register " + username);
+
+        String basic = "Basic " + Base64.getEncoder().encodeToString((username + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        Random random = new Random(user);
+        StringBuilder wardrobe = new StringBuilder();
+        for (int item = 0; item < options.getItemsPerUser(); item++) {
+            String type = TYPES.get(item % TYPES.size());
+            List<String> subtypes = SUBTYPES_BY_TYPE.get(type);
+            wardrobe.append(json(Map.of(
+                "name", type + "-" + item,
+                "type", type,
+                "subtype", subtypes.get(random.nextInt(subtypes.size())),
+                "color", COLORS.get(random.nextInt(COLORS.size())),
+                "formality", FORMALITIES.get(random.nextInt(FORMALITIES.size()))
+            ))).append('\n');
+        }
+        HttpRequest importRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/clothes/import"))
+            .header("Authorization", basic)
+            .header("Content-Type", "application/x-ndjson")
+            .POST(HttpRequest.BodyPublishers.ofString(wardrobe.toString()))
+            .build();
+        expectOk(send(importRequest), "import for " + username);
+
+        if (options.getAuth().equals("basic")) {
+            authorizations[user] = basic;
+            return;
+        }
+        HttpResponse<String> login = send(post("/auth/login", json(Map.of("username", username, "password", PASSWORD)), null));
+        expectOk(login, "login " + username);
+        authorizations[user] = "Bearer " + objectMapper.readTree(login.body()).get("accessToken").asText();
+    }
+
+    /**
+     * Runs one scenario with options.concurrency closed-loop clients for the given duration
+     */
+    private ScenarioResult run(String scenario, Duration duration) throws Exception {
+        int concurrency = options.getConcurrency();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, daemon("load-" + scenario));
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try {
+            List<Future<Recorder>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                int worker = i;
+                workers.add(pool.submit(() -> drive(scenario, worker, deadline)));
+            }
+            Recorder total = new Recorder();
+            for (Future<Recorder> worker : workers) {
+                total.add(worker.get());
+            }
+            return total.toResult(scenario, concurrency, (System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Recorder drive(String scenario, int worker, long deadline) {
+        Recorder recorder = new Recorder();
+        Random random = new Random(worker);
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = request(scenario, random);
+            long sent = System.nanoTime();
+            boolean ok;
+            try {
+                ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            recorder.record(System.nanoTime() - sent, ok);
+        }
+        return recorder;
+    }
+
+    private HttpRequest request(String scenario, Random random) {
+        String authorization = authorizations[random.nextInt(authorizations.length)];
+        return switch (scenario) {
+            case "recommend" -> get("/recommend/" + (random.nextBoolean() ? "casual" : "formal") + "/city-"
+                + random.nextInt(options.getCities()), authorization);
+            case "clothes" -> get("/clothes?limit=100", authorization);
+            case "register" -> post("/register", json(Map.of(
+                "username", "new-" + runId + "-" + registrations.incrementAndGet(), "password", PASSWORD)), null);
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+        };
+    }
+
+    private HttpRequest get(String path, String authorization) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Authorization", authorization)
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+    }
+
+    private HttpRequest post(String path, String body, String authorization) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(30))
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        return builder.build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void expectOk(HttpResponse<String> response, String what) {
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(what + " failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static void writeResults(LoadTestOptions options, double seedSeconds, long weatherApiRequests,
+            List<ScenarioResult> results, String threads, int peakThreads) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", Instant.now().toString());
+        report.put("options", options);
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("threads", threads);
+        report.put("peakPlatformThreads", peakThreads);
+        report.put("seedSeconds", seedSeconds);
+        report.put("weatherApiRequests", weatherApiRequests);
+        report.put("scenarios", results);
+
+        File output = new File(options.getOutput());
+        if (output.getParentFile() != null) {
+            output.getParentFile().mkdirs();
+        }
+        JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .build()
+            .writeValue(output, report);
+        System.out.println("Results written to " + output.getAbsolutePath());
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Latencies and errors seen by one client, merged into a total once a scenario ends
+     */
+    private static class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private void record(long latencyNanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        private void add(Recorder other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(count + other.count, latencies.length * 2));
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        private ScenarioResult toResult(String name, int concurrency, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new ScenarioResult(name, concurrency, seconds, count, errors,
+                count == 0 ? 0 : (double) errors / count,
+                count / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                count == 0 ? 0 : sorted[count - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double fraction) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(fraction * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.aaron.wardrobe.loadtest;
+
+import lombok.Data;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of one load test run, parsed from --name=value arguments
+ */
+@Data
+public class LoadTestOptions {
+    // seeding
+    private int users = 50;
+    private int itemsPerUser = 200;
+
+    // driving
+    private int concurrency = 32;
+    private Duration warmup = Duration.ofSeconds(5);
+    private Duration duration = Duration.ofSeconds(30);
+    private List<String> scenarios = List.of("recommend", "clothes", "register");
+    private String auth = "bearer"; // bearer (log in once per user) or basic (BCrypt on every request)
+    private int cities = 20;
+
+    // environment
+    private Duration weatherLatency = Duration.ofMillis(50);
+    private int port = 0;
+    private String output = "target/loadtest/results-" + System.currentTimeMillis() + ".json";
+
+    // application properties passed through as --app.<property>=value, e.g. --app.spring.profiles.active=virtual
+    private Map<String, String> app = new LinkedHashMap<>();
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (name.startsWith("app.")) {
+                options.app.put(name.substring(4), value);
+                continue;
+            }
+            switch (name) {
+                case "users" -> options.users = Integer.parseInt(value);
+                case "items-per-user" -> options.itemsPerUser = Integer.parseInt(value);
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                case "scenarios" -> options.scenarios = Arrays.asList(value.split(","));
+                case "auth" -> options.auth = value;
+                case "cities" -> options.cities = Integer.parseInt(value);
+                case "weather-latency" -> options.weatherLatency = DurationStyle.detectAndParse(value);
+                case "port" -> options.port = Integer.parseInt(value);
+                case "output" -> options.output = value;
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (!options.auth.equals("bearer") && !options.auth.equals("basic")) {
+            throw new IllegalArgumentException("--auth must be bearer or basic");
+        }
+        return options;
+    }
+}
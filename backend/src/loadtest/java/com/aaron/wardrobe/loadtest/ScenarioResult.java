@@ -0,0 +1,24 @@
+package com.aaron.wardrobe.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * What one scenario measured. Latencies are in milliseconds and include time spent queueing in the client.
+ */
+@Data
+@AllArgsConstructor
+public class ScenarioResult {
+    private String name;
+    private int concurrency;
+    private double durationSeconds;
+    private long requests;
+    private long errors;
+    private double errorRate;
+    private double throughput;
+    private double p50Millis;
+    private double p90Millis;
+    private double p99Millis;
+    private double maxMillis;
+
+}
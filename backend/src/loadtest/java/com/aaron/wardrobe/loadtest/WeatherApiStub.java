@@ -0,0 +1,89 @@
+package com.aaron.wardrobe.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local stand-in for WeatherAPI's current.json endpoint, so the real WeatherApiProvider and its connection pool
+ * are exercised without calling out. Every response is delayed by a fixed latency, and the weather of a city is
+ * derived from its name so repeated lookups agree.
+ */
+class WeatherApiStub {
+
+    private static final List<String> CONDITIONS =
+        List.of("Sunny", "Clear", "Partly cloudy", "Light rain", "Patchy light drizzle", "Moderate snow", "Windy");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final LongAdder requests = new LongAdder();
+
+    private WeatherApiStub(Duration latency) throws IOException {
+        this.latencyMillis = latency.toMillis();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "weather-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/v1/current.json", this::handle);
+    }
+
+    static WeatherApiStub start(Duration latency) throws IOException {
+        WeatherApiStub stub = new WeatherApiStub(latency);
+        stub.server.start();
+        return stub;
+    }
+
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/current.json";
+    }
+
+    long getRequests() {
+        return requests.sum();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String city = "";
+        String query = exchange.getRequestURI().getRawQuery();
+        for (String param : query == null ? new String[0] : query.split("&")) {
+            if (param.startsWith("q=")) {
+                city = URLDecoder.decode(param.substring(2), StandardCharsets.UTF_8).toLowerCase();
+            }
+        }
+        int hash = Math.abs(city.hashCode() % 1000);
+        String body = "{\"current\":{\"temp_f\":" + (20 + hash % 80) + ",\"condition\":{\"text\":\""
+            + CONDITIONS.get(hash % CONDITIONS.size()) + "\"}}}";
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.aaron.wardrobe.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A short-lived access token to send as "Authorization: Bearer ..." and a long-lived refresh token to trade for
+ * a new pair at /auth/refresh
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponse {
+    private String accessToken;
+    private String refreshToken;
+    private String tokenType;
+    private long expiresIn; // seconds until the access token expires
+
+}
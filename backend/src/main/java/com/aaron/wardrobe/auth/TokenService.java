@@ -0,0 +1,194 @@
+package com.aaron.wardrobe.auth;
+
+import com.aaron.wardrobe.user.User;
+import com.aaron.wardrobe.user.UserRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.stereotype.Service;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Issues and verifies the stateless HMAC-SHA256 signed tokens used instead of HTTP Basic. Tokens carry the user's
+ * id and username, so verifying an access token needs neither a database query nor a BCrypt check.
+ *
+ * Refresh tokens also carry a credential version derived from the user's password hash. A refresh loads the user
+ * and is rejected when the user no longer exists or the password has changed since the token was issued, so a
+ * password change revokes every outstanding refresh token and access tokens die out within their short TTL.
+ *
+ * Every replica must share security.token.secret for tokens to be accepted on any node, and startup fails when it
+ * is not set. Only with the dev profile active is a random secret generated instead, which works for a single node
+ * and invalidates tokens on restart.
+ */
+@Service
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    static final String USER_ID_CLAIM = "uid";
+    static final String TOKEN_TYPE_CLAIM = "typ";
+    static final String CREDENTIAL_VERSION_CLAIM = "cv";
+    static final String ACCESS = "access";
+    static final String REFRESH = "refresh";
+
+    private final UserRepository userRepository;
+    private final JwtEncoder encoder;
+    private final JwtDecoder accessTokenDecoder;
+    private final JwtDecoder refreshTokenDecoder;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+
+    public TokenService(
+        UserRepository userRepository,
+        Environment environment,
+        @Value("${security.token.secret:}") String secret,
+        @Value("${security.token.access-ttl:15m}") Duration accessTokenTtl,
+        @Value("${security.token.refresh-ttl:7d}") Duration refreshTokenTtl
+    ) {
+        this.userRepository = userRepository;
+        SecretKey key = new SecretKeySpec(secretBytes(secret, environment.acceptsProfiles(Profiles.of("dev"))),
+            "HmacSHA256");
+        this.encoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        this.accessTokenDecoder = decoder(key, ACCESS);
+        this.refreshTokenDecoder = decoder(key, REFRESH);
+        this.accessTokenTtl = accessTokenTtl;
+        this.refreshTokenTtl = refreshTokenTtl;
+    }
+
+    /**
+     * @param user is the authenticated user, including its password hash
+     * @return a new access and refresh token pair for the user
+     */
+    public TokenResponse issueTokens(User user) {
+        return new TokenResponse(
+            encode(user.getId(), user.getUsername(), ACCESS, null, accessTokenTtl),
+            encode(user.getId(), user.getUsername(), REFRESH, credentialVersion(user), refreshTokenTtl),
+            "Bearer",
+            accessTokenTtl.toSeconds()
+        );
+    }
+
+    /**
+     * Trades a valid refresh token for a new token pair, as long as its user still exists under the same
+     * username and has not changed their password since the token was issued
+     *
+     * @throws org.springframework.security.oauth2.jwt.JwtException if the refresh token is invalid, expired or
+     *         revoked
+     */
+    public TokenResponse refresh(String refreshToken) {
+        Jwt jwt = refreshTokenDecoder.decode(refreshToken);
+        User user = userRepository.findById(toUser(jwt).getId())
+            .filter(found -> found.getUsername().equals(jwt.getSubject()))
+            .orElseThrow(() -> new BadJwtException("The user of the refresh token no longer exists"));
+        if (!credentialVersion(user).equals(jwt.getClaimAsString(CREDENTIAL_VERSION_CLAIM))) {
+            throw new BadJwtException("The refresh token was revoked by a credential change");
+        }
+        return issueTokens(user);
+    }
+
+    /**
+     * @return the decoder the resource server uses to authenticate requests, which only accepts access tokens
+     */
+    public JwtDecoder getAccessTokenDecoder() {
+        return accessTokenDecoder;
+    }
+
+    /**
+     * Rebuilds the authenticated user from a verified token without loading the entity
+     */
+    public static User toUser(Jwt jwt) {
+        User user = new User();
+        user.setId(((Number) jwt.getClaim(USER_ID_CLAIM)).longValue());
+        user.setUsername(jwt.getSubject());
+        return user;
+    }
+
+    private String encode(Long userId, String username, String type, String credentialVersion, Duration ttl) {
+        Instant now = Instant.now();
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
+            .subject(username)
+            .claim(USER_ID_CLAIM, userId)
+            .claim(TOKEN_TYPE_CLAIM, type)
+            .issuedAt(now)
+            .expiresAt(now.plus(ttl));
+        if (credentialVersion != null) {
+            claims.claim(CREDENTIAL_VERSION_CLAIM, credentialVersion);
+        }
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+        return encoder.encode(JwtEncoderParameters.from(header, claims.build())).getTokenValue();
+    }
+
+    private static JwtDecoder decoder(SecretKey key, String type) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        OAuth2TokenValidator<Jwt> typeValidator = jwt -> type.equals(jwt.getClaimAsString(TOKEN_TYPE_CLAIM))
+            ? OAuth2TokenValidatorResult.success()
+            : OAuth2TokenValidatorResult.failure(new OAuth2Error("invalid_token", "Expected a " + type + " token", null));
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(JwtValidators.createDefault(), typeValidator));
+        return decoder;
+    }
+
+    /**
+     * @return a digest of the user's password hash, which changes whenever the password does without putting
+     *         the hash itself into the token
+     */
+    private static String credentialVersion(User user) {
+        if (user.getPassword() == null) {
+            throw new IllegalStateException("Cannot issue a refresh token without the user's password hash");
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(user.getPassword().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] secretBytes(String secret, boolean dev) {
+        if (secret == null || secret.isBlank()) {
+            if (!dev) {
+                throw new IllegalStateException("security.token.secret must be set (TOKEN_SECRET), every replica "
+                    + "must share it; only the dev profile generates a random one");
+            }
+            log.warn("security.token.secret is not set, generating a random token secret for this node only");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("security.token.secret must be at least 32 bytes long");
+        }
+        return bytes;
+    }
+}
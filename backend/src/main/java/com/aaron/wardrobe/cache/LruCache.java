@@ -0,0 +1,131 @@
+package com.aaron.wardrobe.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A small bounded cache that evicts the least recently used entry once it holds maxEntries, and optionally
+ * treats entries older than a TTL as missing. All operations synchronize on the cache, which is fine for the
+ * short critical sections here (no loading happens under the lock).
+ *
+ * @param <K> is the key type
+ * @param <V> is the value type
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries is the most entries kept before the least recently used one is evicted
+     * @param ttl is how long an entry stays valid after it is put, or null for no expiry
+     */
+    public LruCache(int maxEntries, Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if there is none or it has expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - entry.createdAtNanos >= ttlNanos) {
+            entries.remove(key);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry whose key matches, e.g. all entries that belong to one user
+     */
+    public synchronized void removeIf(Predicate<? super K> keyFilter) {
+        entries.keySet().removeIf(keyFilter);
+    }
+
+    /**
+     * @return a copy of the unexpired entries, least recently used first, without counting as lookups
+     */
+    public synchronized Map<K, V> snapshot() {
+        long now = System.nanoTime();
+        Map<K, V> copy = new LinkedHashMap<>();
+        entries.forEach((key, entry) -> {
+            if (ttlNanos == 0 || now - entry.createdAtNanos < ttlNanos) {
+                copy.put(key, entry.value);
+            }
+        });
+        return copy;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the fraction of lookups that were hits, or 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long createdAtNanos;
+
+        private Entry(V value, long createdAtNanos) {
+            this.value = value;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
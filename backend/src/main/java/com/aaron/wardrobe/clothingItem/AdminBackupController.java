@@ -0,0 +1,85 @@
+package com.aaron.wardrobe.clothingItem;
+
+import com.aaron.wardrobe.user.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * Backup endpoints for the users listed in wardrobe.admin.usernames. The all-users export can only be restored
+ * through POST /admin/import, which needs every user named in it to exist already; /clothes/import rejects its
+ * rows.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminBackupController {
+
+    @Autowired
+    private ClothingItemExporter exporter;
+
+    @Autowired
+    private ClothingItemImporter importer;
+
+    @Value("${wardrobe.admin.usernames:}")
+    private Set<String> adminUsernames;
+
+    /**
+     * Streams the wardrobes of all users, each item tagged with its owner's username
+     *
+     * @param format is ndjson (default) or binary
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllClothes(
+        @RequestParam(defaultValue = "ndjson") String format,
+        @AuthenticationPrincipal User user
+    ) {
+        checkAdmin(user, "Only admins can export every wardrobe");
+        ClothingItemExporter.Format exportFormat = ClothingItemExporter.Format.parse(format);
+        if (exportFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or binary");
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"wardrobes." + exportFormat.getExtension() + "\"")
+            .body(exporter.exportAllUsers(exportFormat));
+    }
+
+    /**
+     * Restores the output of GET /admin/export, putting each row into the wardrobe of the user it names
+     */
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ImportResult importAllClothes(InputStream body, @AuthenticationPrincipal User user) throws IOException {
+        checkAdmin(user, "Only admins can restore every wardrobe");
+        return importer.importAllUsers(body);
+    }
+
+    /**
+     * Restores the binary output of GET /admin/export
+     */
+    @PostMapping(value = "/import", consumes = WardrobeBinaryCodec.MEDIA_TYPE)
+    public ImportResult importAllBinaryClothes(InputStream body, @AuthenticationPrincipal User user) {
+        checkAdmin(user, "Only admins can restore every wardrobe");
+        return importer.importAllUsersBinary(body);
+    }
+
+    private void checkAdmin(User user, String message) {
+        if (!adminUsernames.contains(user.getUsername())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, message);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_clothing_item_user_type_formality", columnList = "user_id, type, formality"))
 public class ClothingItem {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -25,4 +26,16 @@ public class ClothingItem {
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
+
+    /**
+     * Creates an item without its owner, as returned by the projection queries in ClothingItemRepository
+     */
+    public ClothingItem(Long id, String name, String type, String subtype, String color, String formality) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.subtype = subtype;
+        this.color = color;
+        this.formality = formality;
+    }
 }
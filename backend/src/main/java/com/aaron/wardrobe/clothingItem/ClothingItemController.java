@@ -3,6 +3,12 @@ package com.aaron.wardrobe.clothingItem;
 import com.aaron.wardrobe.user.User;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -10,9 +16,16 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/clothes")
@@ -20,6 +33,15 @@ public class ClothingItemController {
     @Autowired
     private ClothingItemService service;
 
+    @Autowired
+    private ClothingItemImporter importer;
+
+    @Autowired
+    private ClothingItemExporter exporter;
+
+    @Value("${clothes.page.max-size:500}")
+    private int maxPageSize;
+
     @PostMapping
     public ClothingItem addClothingItem(@RequestBody ClothingItem item, @AuthenticationPrincipal User user) {
         item.setUser(user);
@@ -27,15 +49,101 @@ public class ClothingItemController {
         return service.addClothingItem(item);
     }
 
+    /**
+     * Adds many items at once, sent either as a JSON array or as NDJSON (one item per line). Rows that fail
+     * validation are skipped and listed in the result, as are rows of the all-users export, which carry a
+     * username and are restored through POST /admin/import instead.
+     */
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ImportResult importClothes(InputStream body, @AuthenticationPrincipal User user) throws IOException {
+        return importer.importItems(user, body);
+    }
+
+    /**
+     * Adds many items at once from a stream in the binary export format
+     */
+    @PostMapping(value = "/import", consumes = WardrobeBinaryCodec.MEDIA_TYPE)
+    public ImportResult importBinaryClothes(InputStream body, @AuthenticationPrincipal User user) {
+        return importer.importBinary(user, body);
+    }
+
+    /**
+     * Streams the whole wardrobe as NDJSON or in the binary format, either of which /clothes/import accepts back
+     *
+     * @param format is ndjson (default) or binary
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportClothes(
+        @RequestParam(defaultValue = "ndjson") String format,
+        @AuthenticationPrincipal User user
+    ) {
+        ClothingItemExporter.Format exportFormat = ClothingItemExporter.Format.parse(format);
+        if (exportFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or binary");
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"wardrobe." + exportFormat.getExtension() + "\"")
+            .body(exporter.exportUser(user, exportFormat));
+    }
+
     @PutMapping("/{id}")
     public ClothingItem updateClothingItem(@PathVariable Long id, @RequestBody ClothingItem item, @AuthenticationPrincipal User user) {
         item.setUser(user);
         return service.updateClothingItem(id, item);
     }
 
+    /**
+     * Returns the user's wardrobe in id order, optionally filtered by type, subtype, color and formality. Without
+     * "after" or "limit" every matching item is returned at once. With either of them one page is returned, and if
+     * more items follow, the id to pass as "after" for the next page is sent in the X-Next-Cursor header.
+     *
+     * Each response carries an ETag derived from the wardrobe version and the query. The version lives in the
+     * database and is bumped with every item write, so the ETag is the same on every replica, and a client
+     * revalidating with If-None-Match gets a 304 after a single version lookup while nothing has changed.
+     *
+     * @param after is the id of the last item of the previous page, or omitted for the first page
+     * @param limit is the most items of a page, at most clothes.page.max-size (default: that maximum when "after" is
+     *        passed)
+     */
     @GetMapping
-    public List<ClothingItem> getAllClothes(@AuthenticationPrincipal User user) {
-        return service.getAllClothesForUser(user);
+    public ResponseEntity<?> getAllClothes(
+        @RequestParam(required = false) Long after,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) String type,
+        @RequestParam(required = false) String subtype,
+        @RequestParam(required = false) String color,
+        @RequestParam(required = false) String formality,
+        @AuthenticationPrincipal User user,
+        WebRequest request
+    ) {
+        boolean paged = after != null || limit != null;
+        int pageSize = limit == null ? maxPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + maxPageSize);
+        }
+        long afterId = after == null ? 0 : after;
+
+        // built only from shared state (the stored wardrobe version), never from anything local to this node
+        String etag = "W/\"" + user.getId() + "-" + service.getWardrobeVersion(user) + "-"
+            + Integer.toHexString(Objects.hash(paged, afterId, pageSize, type, subtype, color, formality)) + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache());
+        if (!paged) {
+            List<ClothingItem> items = service.getClothes(user, type, subtype, color, formality);
+            return response.body(items.stream().map(ClothingItemResponse::from).toList());
+        }
+
+        // fetch one extra item to learn whether another page follows
+        List<ClothingItem> items = service.getClothesPage(user, afterId, pageSize + 1, type, subtype, color, formality);
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            response.header("X-Next-Cursor", String.valueOf(items.get(pageSize - 1).getId()));
+        }
+        return response.body(items.stream().map(ClothingItemResponse::from).toList());
     }
 
     @GetMapping("/{id}")
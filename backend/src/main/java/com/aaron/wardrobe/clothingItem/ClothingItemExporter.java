@@ -0,0 +1,190 @@
+package com.aaron.wardrobe.clothingItem;
+
+import com.aaron.wardrobe.user.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Streams wardrobes out of the database as NDJSON or in the WardrobeBinaryCodec format. Rows are read through a
+ * forward-only, read-only cursor and written to the response as they arrive, so memory use does not grow with the
+ * size of the export. On MySQL the export statement alone is put in streaming mode (a fetch size of
+ * Integer.MIN_VALUE), leaving the rest of the application on the driver's default of reading whole result sets;
+ * other databases get clothes.export.fetch-size. Both formats can be fed back into ClothingItemImporter.
+ */
+@Service
+public class ClothingItemExporter {
+
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson"),
+        BINARY(WardrobeBinaryCodec.MEDIA_TYPE, "wbx");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @return the format with the given name (ignoring case), or null if there is none
+         */
+        public static Format parse(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final String USER_SQL =
+        "select c.id, null, c.name, c.type, c.subtype, c.color, c.formality from clothing_item c "
+        + "where c.user_id = ? order by c.id";
+    private static final String ALL_USERS_SQL =
+        "select c.id, u.username, c.name, c.type, c.subtype, c.color, c.formality from clothing_item c "
+        + "join users u on u.id = c.user_id order by c.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ClothingItemExporter(
+        JdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper,
+        @Value("${clothes.export.fetch-size:1000}") int fetchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return a response body that writes every item of the user's wardrobe
+     */
+    public StreamingResponseBody exportUser(User user, Format format) {
+        Long userId = user.getId();
+        return out -> export(out, format, USER_SQL, userId);
+    }
+
+    /**
+     * @return a response body that writes every item of every user, each tagged with its owner's username
+     */
+    public StreamingResponseBody exportAllUsers(Format format) {
+        return out -> export(out, format, ALL_USERS_SQL, null);
+    }
+
+    private void export(OutputStream response, Format format, String sql, Long userId) throws IOException {
+        OutputStream out = new BufferedOutputStream(response, 64 * 1024);
+        RowWriter writer = format == Format.BINARY ? binaryWriter(out) : ndjsonWriter(out);
+
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize(connection));
+                if (userId != null) {
+                    statement.setLong(1, userId);
+                }
+                return statement;
+            }, (ResultSet rs) -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // usually the client went away, nothing more can be sent
+            throw e.getCause();
+        }
+        writer.finish();
+        out.flush();
+    }
+
+    /**
+     * @return Integer.MIN_VALUE on MySQL, where Connector/J only streams rows for that value unless useCursorFetch
+     *         is set for the whole connection, and the configured fetch size elsewhere
+     */
+    private int fetchSize(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase().contains("mysql") ? Integer.MIN_VALUE : fetchSize;
+    }
+
+    private RowWriter binaryWriter(OutputStream out) throws IOException {
+        WardrobeBinaryCodec.Writer writer = new WardrobeBinaryCodec.Writer(out);
+        return new RowWriter() {
+            @Override
+            public void write(ResultSet rs) throws SQLException, IOException {
+                writer.write(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getString(5), rs.getString(6), rs.getString(7));
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    private RowWriter ndjsonWriter(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // the stream is closed by the servlet container, not by the generator
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // rows are separated by the newline written after each of them, not by the default space
+        generator.setRootValueSeparator(null);
+        return new RowWriter() {
+            @Override
+            public void write(ResultSet rs) throws SQLException, IOException {
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong(1));
+                String username = rs.getString(2);
+                if (username != null) {
+                    generator.writeStringField("username", username);
+                }
+                generator.writeStringField("name", rs.getString(3));
+                generator.writeStringField("type", rs.getString(4));
+                generator.writeStringField("subtype", rs.getString(5));
+                generator.writeStringField("color", rs.getString(6));
+                generator.writeStringField("formality", rs.getString(7));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+
+            @Override
+            public void finish() throws IOException {
+                generator.flush();
+            }
+        };
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+}
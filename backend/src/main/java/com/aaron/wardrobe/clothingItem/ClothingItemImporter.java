@@ -0,0 +1,291 @@
+package com.aaron.wardrobe.clothingItem;
+
+import com.aaron.wardrobe.user.User;
+import com.aaron.wardrobe.user.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Imports many ClothingItems for one user in a single request. Rows are read one at a time from a JSON array, an
+ * NDJSON stream or a WardrobeBinaryCodec stream, validated against the rule tables, and inserted in JDBC batches,
+ * so memory use is bounded by the batch size rather than the size of the import.
+ *
+ * Inserts bypass Hibernate, which cannot batch inserts of IDENTITY-generated ids. Ids are still assigned by the
+ * database's auto increment, and with rewriteBatchedStatements=true on the MySQL URL each batch is sent as a
+ * single multi-row insert. Each batch commits together with a bump of the user's wardrobe version.
+ *
+ * Rows of the all-users export carry their owner's username. They are only accepted by importAllUsers, which puts
+ * each row into the wardrobe of the existing user it names, and are rejected by the per-user imports so a backup
+ * can never be merged into the caller's wardrobe.
+ */
+@Service
+public class ClothingItemImporter {
+
+    private static final String INSERT_SQL =
+        "insert into clothing_item (name, type, subtype, color, formality, user_id) values (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectReader rowReader;
+    private final ClothingItemValidator validator;
+    private final ClothingItemService clothingItemService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final long maxRows;
+    private final int maxReportedErrors;
+
+    public ClothingItemImporter(
+        JdbcTemplate jdbcTemplate,
+        ObjectMapper objectMapper,
+        ClothingItemValidator validator,
+        ClothingItemService clothingItemService,
+        UserRepository userRepository,
+        PlatformTransactionManager transactionManager,
+        @Value("${clothes.import.batch-size:500}") int batchSize,
+        @Value("${clothes.import.max-rows:10000}") long maxRows,
+        @Value("${clothes.import.max-reported-errors:100}") int maxReportedErrors
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowReader = objectMapper.readerFor(ImportRow.class);
+        this.validator = validator;
+        this.clothingItemService = clothingItemService;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Imports every valid row of the body into the user's wardrobe. Invalid rows are skipped and reported, while
+     * malformed JSON, too many rows or a database error stop the import, keeping the rows inserted before it.
+     *
+     * @param user is the owner of the imported items
+     * @param body is either a JSON array of items or one JSON item per line
+     * @return the outcome of the import
+     * @throws IOException if reading the body fails
+     */
+    public ImportResult importItems(User user, InputStream body) throws IOException {
+        try (MappingIterator<ImportRow> rows = rowReader.readValues(body)) {
+            return importRows(user, jsonRows(rows));
+        }
+    }
+
+    /**
+     * Imports every valid row of a stream in the WardrobeBinaryCodec format, e.g. one written by the export
+     * endpoint, into the user's wardrobe. Ids in the stream are ignored.
+     *
+     * @param user is the owner of the imported items
+     * @param body is the binary stream
+     * @return the outcome of the import
+     */
+    public ImportResult importBinary(User user, InputStream body) {
+        RowSource rows = binaryRows(body);
+        return rows == null ? notBinary() : importRows(user, rows);
+    }
+
+    /**
+     * Restores an all-users export: every row goes into the wardrobe of the user named by its username, who must
+     * already exist. Rows without a username or naming an unknown user are skipped and reported.
+     *
+     * @param body is either a JSON array of items or one JSON item per line
+     * @return the outcome of the import
+     * @throws IOException if reading the body fails
+     */
+    public ImportResult importAllUsers(InputStream body) throws IOException {
+        try (MappingIterator<ImportRow> rows = rowReader.readValues(body)) {
+            return importRows(null, jsonRows(rows));
+        }
+    }
+
+    /**
+     * Restores an all-users export in the WardrobeBinaryCodec format, the same way as importAllUsers
+     *
+     * @param body is the binary stream
+     * @return the outcome of the import
+     */
+    public ImportResult importAllUsersBinary(InputStream body) {
+        RowSource rows = binaryRows(body);
+        return rows == null ? notBinary() : importRows(null, rows);
+    }
+
+    private static RowSource jsonRows(MappingIterator<ImportRow> rows) {
+        // readValues reads a root-level array element by element, and otherwise a sequence of root-level values
+        return () -> {
+            try {
+                return rows.hasNextValue() ? rows.nextValue() : null;
+            } catch (JsonMappingException e) {
+                // a value of the wrong shape; the iterator skips to the next row
+                throw new InvalidRowException(e.getOriginalMessage());
+            } catch (JsonProcessingException e) {
+                throw new IOException("malformed JSON: " + e.getOriginalMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * @return the rows of a binary stream, or null if the body is not one
+     */
+    private static RowSource binaryRows(InputStream body) {
+        WardrobeBinaryCodec.Reader reader;
+        try {
+            reader = new WardrobeBinaryCodec.Reader(body);
+        } catch (IOException e) {
+            return null;
+        }
+        return () -> {
+            ClothingItem item = reader.next();
+            if (item == null) {
+                return null;
+            }
+            return new ImportRow(item.getId(), reader.getUsername(), item.getName(), item.getType(),
+                item.getSubtype(), item.getColor(), item.getFormality());
+        };
+    }
+
+    private ImportResult notBinary() {
+        ImportResult result = new ImportResult();
+        reject(result, 1, "not a wardrobe binary stream, import stopped");
+        return result;
+    }
+
+    /**
+     * @param user is the owner of every row, or null to take each row's owner from its username
+     */
+    private ImportResult importRows(User user, RowSource rows) {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        // the owners of the rows in the batch, whose wardrobe versions are bumped when it commits
+        Map<Long, User> owners = new LinkedHashMap<>();
+        Map<String, Optional<User>> usersByName = new HashMap<>();
+
+        try {
+            while (true) {
+                ImportRow row;
+                try {
+                    row = rows.next();
+                } catch (InvalidRowException e) {
+                    result.setReceived(result.getReceived() + 1);
+                    reject(result, result.getReceived(), e.getMessage());
+                    continue;
+                } catch (IOException e) {
+                    reject(result, result.getReceived() + 1, e.getMessage() + ", import stopped");
+                    break;
+                }
+                if (row == null) {
+                    break;
+                }
+
+                result.setReceived(result.getReceived() + 1);
+                if (result.getReceived() > maxRows) {
+                    reject(result, result.getReceived(), "an import can have at most " + maxRows + " rows, import stopped");
+                    break;
+                }
+
+                User owner = user;
+                if (user != null && row.getUsername() != null) {
+                    reject(result, result.getReceived(),
+                        "rows with a username come from the all-users export, restore them through POST /admin/import");
+                    continue;
+                }
+                if (user == null) {
+                    if (row.getUsername() == null) {
+                        reject(result, result.getReceived(), "username is required");
+                        continue;
+                    }
+                    owner = usersByName.computeIfAbsent(row.getUsername(), userRepository::findByUsername).orElse(null);
+                    if (owner == null) {
+                        reject(result, result.getReceived(), "unknown user: " + row.getUsername());
+                        continue;
+                    }
+                }
+
+                ClothingItem item = row.toItem();
+                String error = validator.validate(item);
+                if (error != null) {
+                    reject(result, result.getReceived(), error);
+                    continue;
+                }
+                batch.add(new Object[] {
+                    item.getName(), item.getType(), item.getSubtype(), item.getColor(), item.getFormality(), owner.getId()
+                });
+                owners.putIfAbsent(owner.getId(), owner);
+                if (batch.size() == batchSize) {
+                    flush(batch, owners, result);
+                }
+            }
+            flush(batch, owners, result);
+        } catch (DataAccessException e) {
+            // none of the rows of the failing batch were inserted
+            result.setFailed(result.getFailed() + batch.size() - 1);
+            reject(result, result.getReceived(), "database error, the last " + batch.size()
+                + " valid rows up to this one were not inserted, import stopped");
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setItemsPerSecond(elapsedNanos == 0 ? 0 : result.getImported() * 1e9 / elapsedNanos);
+        return result;
+    }
+
+    private void flush(List<Object[]> batch, Map<Long, User> owners, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            owners.values().forEach(clothingItemService::wardrobeChanged);
+        });
+        result.setImported(result.getImported() + batch.size());
+        batch.clear();
+        owners.clear();
+    }
+
+    private void reject(ImportResult result, long row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new ImportRowError(row, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    /**
+     * Reads the rows of one import body
+     */
+    private interface RowSource {
+        /**
+         * @return the next row, or null once the body is exhausted
+         * @throws InvalidRowException if this row is unreadable but the rows after it can still be read
+         * @throws IOException if the body cannot be read any further
+         */
+        ImportRow next() throws IOException;
+    }
+
+    private static class InvalidRowException extends IOException {
+        private InvalidRowException(String message) {
+            super(message);
+        }
+    }
+}
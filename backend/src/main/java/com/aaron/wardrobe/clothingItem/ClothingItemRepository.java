@@ -1,9 +1,13 @@
 package com.aaron.wardrobe.clothingItem;
 
 import com.aaron.wardrobe.user.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +15,33 @@ public interface ClothingItemRepository extends JpaRepository<ClothingItem, Long
 
     List<ClothingItem> findByUser(User user);
 
+    /**
+     * Loads only the columns recommendations need, without the owning user, for the given types and
+     * formalities. Served by the (user_id, type, formality) index.
+     */
+    @Query("select new com.aaron.wardrobe.clothingItem.ClothingItem(c.id, c.name, c.type, c.subtype, c.color, c.formality) "
+        + "from ClothingItem c where c.user.id = :userId and c.type in :types and c.formality in :formalities")
+    List<ClothingItem> findScoringColumns(@Param("userId") Long userId, @Param("types") Collection<String> types,
+        @Param("formalities") Collection<String> formalities);
+
+    /**
+     * Same as findScoringColumns, for every formality of the given types
+     */
+    @Query("select new com.aaron.wardrobe.clothingItem.ClothingItem(c.id, c.name, c.type, c.subtype, c.color, c.formality) "
+        + "from ClothingItem c where c.user.id = :userId and c.type in :types")
+    List<ClothingItem> findScoringColumnsByType(@Param("userId") Long userId, @Param("types") Collection<String> types);
+
+    /**
+     * Loads the next page of a user's items in id order, starting after the given id. Null filters match
+     * everything.
+     */
+    @Query("select new com.aaron.wardrobe.clothingItem.ClothingItem(c.id, c.name, c.type, c.subtype, c.color, c.formality) "
+        + "from ClothingItem c where c.user.id = :userId and c.id > :afterId "
+        + "and (:type is null or c.type = :type) and (:subtype is null or c.subtype = :subtype) "
+        + "and (:color is null or c.color = :color) and (:formality is null or c.formality = :formality) "
+        + "order by c.id")
+    List<ClothingItem> findPage(@Param("userId") Long userId, @Param("afterId") Long afterId,
+        @Param("type") String type, @Param("subtype") String subtype, @Param("color") String color,
+        @Param("formality") String formality, Limit limit);
+
 }
@@ -0,0 +1,25 @@
+package com.aaron.wardrobe.clothingItem;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The fields of a ClothingItem returned to clients, without the owning user
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClothingItemResponse {
+    private Long id;
+    private String name;
+    private String type;
+    private String subtype;
+    private String color;
+    private String formality;
+
+    public static ClothingItemResponse from(ClothingItem item) {
+        return new ClothingItemResponse(item.getId(), item.getName(), item.getType(), item.getSubtype(),
+            item.getColor(), item.getFormality());
+    }
+}
@@ -1,48 +1,156 @@
 package com.aaron.wardrobe.clothingItem;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.aaron.wardrobe.cache.LruCache;
 import com.aaron.wardrobe.user.User;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ClothingItemService {
     @Autowired
     private ClothingItemRepository clothingItemRepository;
 
+    @Autowired
+    private WardrobeVersions wardrobeVersions;
+
+    private final LruCache<IndexKey, WardrobeIndex> wardrobeIndexes;
+
+    public ClothingItemService(@Value("${wardrobe.index.max-users:10000}") int maxIndexedUsers) {
+        this.wardrobeIndexes = new LruCache<>(maxIndexedUsers, null);
+    }
+
+    @Transactional
     public ClothingItem addClothingItem(ClothingItem item) {
-        return clothingItemRepository.save(item);
+        ClothingItem saved = clothingItemRepository.save(item);
+        wardrobeChanged(item.getUser());
+        return saved;
     }
 
+    @Transactional
     public ClothingItem updateClothingItem(Long id, ClothingItem newItem) {
         ClothingItem targetItem = clothingItemRepository.findById(id).orElse(null);
-        
+
         targetItem.setName(newItem.getName());
         targetItem.setType(newItem.getType());
         targetItem.setSubtype(newItem.getSubtype());
         targetItem.setColor(newItem.getColor());
         targetItem.setFormality(newItem.getFormality());
 
-        return clothingItemRepository.save(targetItem);
+        ClothingItem saved = clothingItemRepository.save(targetItem);
+        wardrobeChanged(targetItem.getUser());
+        return saved;
     }
 
     public List<ClothingItem> getAllClothesForUser(User user) {
         return clothingItemRepository.findByUser(user);
     }
 
+    /**
+     * Returns up to limit of the user's items with an id greater than afterId, in id order. Null filters match
+     * every item.
+     */
+    public List<ClothingItem> getClothesPage(User user, long afterId, int limit, String type, String subtype,
+            String color, String formality) {
+        return clothingItemRepository.findPage(user.getId(), afterId, type, subtype, color, formality, Limit.of(limit));
+    }
+
+    /**
+     * Returns all of the user's items in id order. Null filters match every item.
+     */
+    public List<ClothingItem> getClothes(User user, String type, String subtype, String color, String formality) {
+        return clothingItemRepository.findPage(user.getId(), 0L, type, subtype, color, formality, Limit.unlimited());
+    }
+
+    /**
+     * @return the current version of the user's wardrobe, which changes whenever an item is added, updated or removed
+     */
+    public long getWardrobeVersion(User user) {
+        return wardrobeVersions.current(user.getId());
+    }
+
+    /**
+     * Returns the part of the user's wardrobe a recommendation for the given formality can use, grouped by type
+     * and formality: items of the given types whose formality matches or is "any", plus every item of a required
+     * type that has no such match. Only the scoring columns are loaded, and the index is served from memory for
+     * as long as the wardrobe version it was built from is current, so after a change on any node only the first
+     * request reloads the items; every other request costs one primary key lookup of the version.
+     *
+     * @param user is the owner of the wardrobe
+     * @param formality is the formality of the outfit, or null for "any" items only
+     * @param types are all clothing types the outfit may contain
+     * @param requiredTypes are the types every outfit needs, loaded regardless of formality if nothing matches
+     * @return the index of the user's current wardrobe for this formality
+     */
+    public WardrobeIndex getWardrobeIndex(User user, String formality, Collection<String> types,
+            Collection<String> requiredTypes) {
+        // read the version before loading, so a change that races the load leaves the index stale, not wrong
+        long version = wardrobeVersions.current(user.getId());
+        IndexKey key = new IndexKey(user.getId(), formality == null ? "any" : formality);
+        WardrobeIndex index = wardrobeIndexes.get(key);
+        if (index != null && index.getVersion() == version) {
+            return index;
+        }
+
+        List<ClothingItem> items = new ArrayList<>(
+            clothingItemRepository.findScoringColumns(user.getId(), types, Set.of(key.formality(), "any")));
+
+        Set<String> unmatchedRequiredTypes = new HashSet<>(requiredTypes);
+        items.forEach(item -> unmatchedRequiredTypes.remove(item.getType()));
+        if (!unmatchedRequiredTypes.isEmpty()) {
+            items.addAll(clothingItemRepository.findScoringColumnsByType(user.getId(), unmatchedRequiredTypes));
+        }
+
+        index = new WardrobeIndex(version, items);
+        wardrobeIndexes.put(key, index);
+        return index;
+    }
+
     public Optional<ClothingItem> getClothingItemForUser(Long id, User user) {
         return clothingItemRepository.findById(id)
             .filter(item -> item.getUser().getId().equals(user.getId()));
     }
 
+    @Transactional
     public void removeClothingItemForUser(Long id, User user) {
         clothingItemRepository.findById(id).ifPresent(item -> {
             if (item.getUser().getId().equals(user.getId())) {
                 clothingItemRepository.deleteById(id);
+                wardrobeChanged(user);
             }
         });
     }
+
+    public LruCache<IndexKey, WardrobeIndex> getWardrobeIndexCache() {
+        return wardrobeIndexes;
+    }
+
+    /**
+     * Bumps the user's wardrobe version, to be called in the transaction that wrote the items, and drops this
+     * node's indexes of the wardrobe right away (other nodes notice the new version on their next request)
+     */
+    void wardrobeChanged(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        wardrobeVersions.bump(user.getId());
+        Long userId = user.getId();
+        wardrobeIndexes.removeIf(key -> key.userId().equals(userId));
+    }
+
+    /**
+     * Wardrobe indexes are cached per user and formality
+     */
+    public record IndexKey(Long userId, String formality) {
+    }
 }
@@ -0,0 +1,52 @@
+package com.aaron.wardrobe.clothingItem;
+
+import org.springframework.stereotype.Component;
+
+import com.aaron.wardrobe.recommendation.customization.RuleRegistry;
+import com.aaron.wardrobe.recommendation.customization.RuleVocabulary;
+
+import java.util.Set;
+
+/**
+ * Checks a ClothingItem against the active rule tables, so items whose subtype or color the scorers would not
+ * recognize are rejected up front instead of silently getting neutral scores.
+ */
+@Component
+public class ClothingItemValidator {
+
+    private static final Set<String> TYPES = Set.of("top", "bottom", "outerwear", "footwear", "headwear");
+
+    // neutral colors match everything, so they never appear in colors.csv
+    private static final Set<String> NEUTRAL_COLORS = Set.of("black", "white", "grey");
+
+    private final RuleRegistry ruleRegistry;
+
+    public ClothingItemValidator(RuleRegistry ruleRegistry) {
+        this.ruleRegistry = ruleRegistry;
+    }
+
+    /**
+     * @param item is the item to check
+     * @return why the item is invalid, or null if it is valid
+     */
+    public String validate(ClothingItem item) {
+        if (item.getName() == null || item.getName().isBlank()) {
+            return "name is required";
+        }
+        if (item.getFormality() == null || item.getFormality().isBlank()) {
+            return "formality is required";
+        }
+        if (!TYPES.contains(item.getType())) {
+            return "type must be one of " + String.join(", ", TYPES.stream().sorted().toList());
+        }
+
+        RuleVocabulary vocabulary = ruleRegistry.current().getVocabulary();
+        if (vocabulary.subtypeId(item.getSubtype()) == RuleVocabulary.UNKNOWN) {
+            return "unknown subtype: " + item.getSubtype();
+        }
+        if (!NEUTRAL_COLORS.contains(item.getColor()) && vocabulary.colorId(item.getColor()) == RuleVocabulary.UNKNOWN) {
+            return "unknown color: " + item.getColor();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.aaron.wardrobe.clothingItem;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import: how many rows were read, imported and rejected, why rows were rejected (the
+ * first maxReportedErrors of them) and how fast the import ran.
+ */
+@Data
+public class ImportResult {
+    private long received;
+    private long imported;
+    private long failed;
+    private List<ImportRowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private long elapsedMillis;
+    private double itemsPerSecond;
+
+}
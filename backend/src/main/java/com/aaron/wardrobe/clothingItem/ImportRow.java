@@ -0,0 +1,26 @@
+package com.aaron.wardrobe.clothingItem;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of an import body, as written by ClothingItemExporter. The username is only set in rows of the
+ * all-users export, and the id is read but never reused, since imported items get new ids.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class ImportRow {
+    private Long id;
+    private String username;
+    private String name;
+    private String type;
+    private String subtype;
+    private String color;
+    private String formality;
+
+    ClothingItem toItem() {
+        return new ClothingItem(null, name, type, subtype, color, formality);
+    }
+}
@@ -0,0 +1,17 @@
+package com.aaron.wardrobe.clothingItem;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Why one row of an import was rejected. Rows are numbered from 1 in the order they were sent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowError {
+    private long row;
+    private String message;
+
+}
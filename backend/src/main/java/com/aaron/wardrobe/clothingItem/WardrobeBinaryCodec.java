@@ -0,0 +1,162 @@
+package com.aaron.wardrobe.clothingItem;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A compact binary form of a wardrobe, used by the export and import endpoints. A stream starts with the magic
+ * bytes "WBX1" and is followed by one record per item until the end of the stream. Each record is
+ *
+ *   int32 payload length | int64 id | username | name | type | subtype | color | formality
+ *
+ * where every string is an int16 byte length (-1 for null) followed by that many UTF-8 bytes, and all numbers are
+ * big-endian. Readers skip whatever follows the fields they know inside a payload, so fields can be appended to
+ * the record later without breaking old readers.
+ */
+public final class WardrobeBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-wardrobe-binary";
+
+    private static final byte[] MAGIC = { 'W', 'B', 'X', '1' };
+    private static final int MAX_PAYLOAD = 64 * 1024;
+
+    private WardrobeBinaryCodec() {
+    }
+
+    /**
+     * Writes records to a stream. Nothing is buffered here, so callers should pass a buffered stream.
+     */
+    public static class Writer {
+        private final DataOutputStream out;
+        private byte[] payload = new byte[256];
+
+        public Writer(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(out);
+            this.out.write(MAGIC);
+        }
+
+        /**
+         * @param username is the owner of the item, or null when the stream holds a single user's wardrobe
+         */
+        public void write(long id, String username, String name, String type, String subtype, String color,
+                String formality) throws IOException {
+            int length = 8;
+            length += encodedLength(username) + encodedLength(name) + encodedLength(type)
+                + encodedLength(subtype) + encodedLength(color) + encodedLength(formality);
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(payload, 0, length);
+            buffer.putLong(id);
+            putString(buffer, username);
+            putString(buffer, name);
+            putString(buffer, type);
+            putString(buffer, subtype);
+            putString(buffer, color);
+            putString(buffer, formality);
+
+            out.writeInt(length);
+            out.write(payload, 0, length);
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        private static int encodedLength(String value) {
+            return 2 + (value == null ? 0 : checkedUtf8Length(value));
+        }
+
+        private static void putString(ByteBuffer buffer, String value) {
+            if (value == null) {
+                buffer.putShort((short) -1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        private static int checkedUtf8Length(String value) {
+            int length = value.getBytes(StandardCharsets.UTF_8).length;
+            if (length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Field is too long for the binary format: " + length + " bytes");
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Reads records back from a stream written by Writer
+     */
+    public static class Reader {
+        private final DataInputStream in;
+        private byte[] payload = new byte[256];
+        private String username;
+
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            byte[] magic = new byte[MAGIC.length];
+            this.in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a wardrobe binary stream");
+            }
+        }
+
+        /**
+         * @return the next item, with its owner left null (see getUsername), or null at the end of the stream
+         * @throws IOException if the stream ends inside a record or a record is malformed
+         */
+        public ClothingItem next() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (length < 8 || length > MAX_PAYLOAD) {
+                throw new IOException("Invalid record length " + length);
+            }
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            in.readFully(payload, 0, length);
+
+            ByteBuffer buffer = ByteBuffer.wrap(payload, 0, length);
+            try {
+                long id = buffer.getLong();
+                username = getString(buffer);
+                return new ClothingItem(id, getString(buffer), getString(buffer), getString(buffer),
+                    getString(buffer), getString(buffer));
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed record", e);
+            }
+        }
+
+        /**
+         * @return the owner's username of the item last returned by next, or null if the stream holds a single
+         *         user's wardrobe
+         */
+        public String getUsername() {
+            return username;
+        }
+
+        private static String getString(ByteBuffer buffer) {
+            short length = buffer.getShort();
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.aaron.wardrobe.clothingItem;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of (part of) one user's wardrobe grouped by type and then by formality, tagged with the
+ * wardrobe version it was built from.
+ */
+public class WardrobeIndex {
+
+    private final long version;
+    private final int size;
+    private final Map<String, List<ClothingItem>> byType = new HashMap<>();
+    private final Map<String, Map<String, List<ClothingItem>>> byTypeAndFormality = new HashMap<>();
+
+    public WardrobeIndex(long version, List<ClothingItem> items) {
+        this.version = version;
+        int indexed = 0;
+        for (ClothingItem item : items) {
+            if (item.getType() == null) {
+                continue;
+            }
+            String formality = item.getFormality() == null ? "" : item.getFormality();
+            byType.computeIfAbsent(item.getType(), type -> new ArrayList<>()).add(item);
+            byTypeAndFormality.computeIfAbsent(item.getType(), type -> new HashMap<>())
+                .computeIfAbsent(formality, f -> new ArrayList<>())
+                .add(item);
+            indexed++;
+        }
+        this.size = indexed;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Set<String> types() {
+        return Collections.unmodifiableSet(byType.keySet());
+    }
+
+    /**
+     * @return every item of the given type, or an empty list
+     */
+    public List<ClothingItem> itemsOfType(String type) {
+        return Collections.unmodifiableList(byType.getOrDefault(type, List.of()));
+    }
+
+    /**
+     * @return the items of the given type with exactly the given formality, or an empty list
+     */
+    public List<ClothingItem> itemsOfType(String type, String formality) {
+        return Collections.unmodifiableList(byTypeAndFormality.getOrDefault(type, Map.of()).getOrDefault(formality, List.of()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.aaron.wardrobe.clothingItem;
+
+import com.aaron.wardrobe.user.UserRepository;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks a version number per user that changes every time the user's wardrobe is modified, so anything derived
+ * from a wardrobe can be checked for staleness without reloading the wardrobe.
+ *
+ * The version is the wardrobe_version column of the user's row. It is bumped in the same transaction as the item
+ * write, so every node sees a change as soon as it is committed, and reading it is a single primary key lookup.
+ */
+@Component
+public class WardrobeVersions {
+
+    private final UserRepository userRepository;
+
+    public WardrobeVersions(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * @return the current wardrobe version of the user, or 0 if the user does not exist
+     */
+    public long current(Long userId) {
+        return userRepository.findWardrobeVersion(userId).orElse(0L);
+    }
+
+    /**
+     * Marks the user's wardrobe as modified. Joins the caller's transaction, so call it from the transaction that
+     * writes the items.
+     */
+    public void bump(Long userId) {
+        userRepository.incrementWardrobeVersion(userId);
+    }
+}
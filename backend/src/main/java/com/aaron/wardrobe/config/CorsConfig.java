@@ -16,7 +16,9 @@ public class CorsConfig {
                 registry.addMapping("/**")
                     .allowedOrigins("http://localhost:5173", "http://localhost:3000")
                     .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                    .allowedHeaders("*");
+                    .allowedHeaders("*")
+                    // so browser clients can page through /clothes and revalidate with If-None-Match
+                    .exposedHeaders("X-Next-Cursor", "ETag");
             }
         };
     }
@@ -0,0 +1,58 @@
+package com.aaron.wardrobe.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    /**
+     * Bounded pool for the independent lookups of a recommendation request (e.g. one weather lookup per city of
+     * an outfit plan). When the queue is full the submitting request thread runs the task itself, which slows
+     * callers down instead of rejecting them.
+     *
+     * With spring.threads.virtual.enabled on Java 21+ every task gets its own virtual thread instead, and
+     * recommendation.executor.virtual-concurrency-limit caps how many run at once (further submitters block).
+     */
+    @Bean
+    public AsyncTaskExecutor recommendationExecutor(
+        Environment environment,
+        @Value("${recommendation.executor.pool-size:32}") int poolSize,
+        @Value("${recommendation.executor.queue-capacity:200}") int queueCapacity,
+        @Value("${recommendation.executor.virtual-concurrency-limit:256}") int virtualConcurrencyLimit
+    ) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("recommendation-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualConcurrencyLimit);
+            return executor;
+        }
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads, using platform threads",
+                Runtime.version().feature());
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("recommendation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
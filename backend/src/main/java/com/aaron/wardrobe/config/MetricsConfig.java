@@ -0,0 +1,112 @@
+package com.aaron.wardrobe.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.aaron.wardrobe.cache.LruCache;
+import com.aaron.wardrobe.clothingItem.ClothingItemService;
+import com.aaron.wardrobe.recommendation.OutfitPrecomputer;
+import com.aaron.wardrobe.recommendation.RecommendationEventLog;
+import com.aaron.wardrobe.recommendation.RecommendationMemo;
+import com.aaron.wardrobe.recommendation.customization.RuleRegistry;
+import com.aaron.wardrobe.recommendation.customization.weatherScore.WeatherService;
+import com.aaron.wardrobe.user.UserService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Exposes the hit, miss and size counters the caches already keep, read only when the registry is scraped
+     */
+    @Bean
+    public MeterBinder cacheMetrics(WeatherService weatherService, ClothingItemService clothingItemService,
+            UserService userService, OutfitPrecomputer precomputer, RecommendationMemo memo) {
+        return registry -> {
+            bindLruCache(registry, "wardrobe-index", clothingItemService.getWardrobeIndexCache());
+            bindLruCache(registry, "user-principal", userService.getPrincipalCache());
+            bindLruCache(registry, "precomputed-outfit", precomputer.getOutfitCache());
+            bindLruCache(registry, "recommendation-memo", memo.getRankingCache());
+            FunctionCounter.builder("wardrobe.precomputed.outfits", precomputer, OutfitPrecomputer::getServed)
+                .tag("result", "served").register(registry);
+            FunctionCounter.builder("wardrobe.precomputed.outfits", precomputer, OutfitPrecomputer::getStale)
+                .tag("result", "stale").register(registry);
+            Gauge.builder("wardrobe.precomputed.active.requests", precomputer, OutfitPrecomputer::getActiveRequests)
+                .register(registry);
+
+            FunctionCounter.builder("wardrobe.cache.requests", weatherService, WeatherService::getCacheHits)
+                .tags("cache", "weather", "result", "hit").register(registry);
+            FunctionCounter.builder("wardrobe.cache.requests", weatherService, WeatherService::getStaleHits)
+                .tags("cache", "weather", "result", "stale-hit").register(registry);
+            FunctionCounter.builder("wardrobe.cache.requests", weatherService, WeatherService::getCacheMisses)
+                .tags("cache", "weather", "result", "miss").register(registry);
+            FunctionCounter.builder("wardrobe.weather.fallbacks", weatherService, WeatherService::getFallbacks)
+                .register(registry);
+            Gauge.builder("wardrobe.cache.size", weatherService, WeatherService::getCacheSize)
+                .tag("cache", "weather").register(registry);
+            // 0 closed, 1 open, 2 half open
+            Gauge.builder("wardrobe.weather.circuit.state", weatherService, service -> service.getCircuitState().ordinal())
+                .register(registry);
+        };
+    }
+
+    /**
+     * Exposes how far the event writer is behind (queue depth against capacity), how many events were dropped
+     * because the queue was full or failed to insert, and how long each batch insert takes
+     */
+    @Bean
+    public MeterBinder recommendationEventMetrics(RecommendationEventLog events) {
+        return registry -> {
+            FunctionCounter.builder("wardrobe.recommendation.events", events, RecommendationEventLog::getPublished)
+                .tag("result", "published").register(registry);
+            FunctionCounter.builder("wardrobe.recommendation.events", events, RecommendationEventLog::getWritten)
+                .tag("result", "written").register(registry);
+            FunctionCounter.builder("wardrobe.recommendation.events", events, RecommendationEventLog::getDropped)
+                .tag("result", "dropped").register(registry);
+            FunctionCounter.builder("wardrobe.recommendation.events", events, RecommendationEventLog::getFailed)
+                .tag("result", "failed").register(registry);
+            Gauge.builder("wardrobe.recommendation.events.queue.depth", events, RecommendationEventLog::getQueueDepth)
+                .register(registry);
+            Gauge.builder("wardrobe.recommendation.events.queue.capacity", events, RecommendationEventLog::getCapacity)
+                .register(registry);
+            FunctionTimer.builder("wardrobe.recommendation.events.flush", events, RecommendationEventLog::getFlushes,
+                RecommendationEventLog::getFlushNanos, TimeUnit.NANOSECONDS).register(registry);
+        };
+    }
+
+    /**
+     * Exposes the active rule version, so a rollout can be checked to have picked up a reload on every node
+     */
+    @Bean
+    public MeterBinder ruleMetrics(RuleRegistry ruleRegistry) {
+        return registry -> {
+            Gauge.builder("wardrobe.rules.version", ruleRegistry, rules -> rules.current().getVersion())
+                .register(registry);
+            FunctionCounter.builder("wardrobe.rules.reloads", ruleRegistry, RuleRegistry::getReloads)
+                .tag("result", "published").register(registry);
+            FunctionCounter.builder("wardrobe.rules.reloads", ruleRegistry, RuleRegistry::getRejections)
+                .tag("result", "rejected").register(registry);
+            TimeGauge.builder("wardrobe.rules.load.time", ruleRegistry, TimeUnit.NANOSECONDS,
+                RuleRegistry::getLastLoadNanos).register(registry);
+        };
+    }
+
+    private static void bindLruCache(MeterRegistry registry, String name, LruCache<?, ?> cache) {
+        FunctionCounter.builder("wardrobe.cache.requests", cache, LruCache::getHits)
+            .tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("wardrobe.cache.requests", cache, LruCache::getMisses)
+            .tags("cache", name, "result", "miss").register(registry);
+        FunctionCounter.builder("wardrobe.cache.evictions", cache, LruCache::getEvictions)
+            .tag("cache", name).register(registry);
+        Gauge.builder("wardrobe.cache.size", cache, LruCache::size)
+            .tag("cache", name).register(registry);
+    }
+}
@@ -1,16 +1,29 @@
 package com.aaron.wardrobe.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import com.aaron.wardrobe.auth.TokenService;
+import com.aaron.wardrobe.metrics.PipelineMetrics;
+import com.aaron.wardrobe.metrics.TimedJwtDecoder;
+import com.aaron.wardrobe.metrics.TimedPasswordEncoder;
+import com.aaron.wardrobe.user.User;
 import com.aaron.wardrobe.user.UserService;
 
+import java.util.Collections;
+import java.util.Set;
+
 import static org.springframework.security.config.Customizer.withDefaults;
 
 
@@ -24,8 +37,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PipelineMetrics metrics) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), metrics);
     }
 
      @Bean
@@ -33,17 +46,40 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
+    @Bean
+    public JwtDecoder jwtDecoder(TokenService tokenService, PipelineMetrics metrics) {
+        return new TimedJwtDecoder(tokenService.getAccessTokenDecoder(), metrics);
+    }
 
+
+    /**
+     * Requests authenticate either with a bearer access token from /auth/login, verified from its signature
+     * alone, or with HTTP Basic, which checks the password with BCrypt on every request. Of the actuator endpoints
+     * only health is public; metrics and prometheus expose latencies, cache sizes and auth timings, so they are
+     * limited to the users in wardrobe.admin.usernames (scrape with HTTP Basic).
+     */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+            @Value("${wardrobe.admin.usernames:}") Set<String> adminUsernames) throws Exception {
         http
             .cors(withDefaults())
           .csrf(csrf -> csrf.disable())
+          .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
           .authorizeHttpRequests(auth -> auth
-              .requestMatchers("/register").permitAll() 
+              .requestMatchers("/register").permitAll()
+              .requestMatchers("/auth/login", "/auth/refresh").permitAll()
+              .requestMatchers("/actuator/health").permitAll()
+              .requestMatchers("/actuator/**").access((authentication, context) ->
+                  new AuthorizationDecision(adminUsernames.contains(authentication.get().getName())))
               .requestMatchers("/clothes/**").authenticated()
               .anyRequest().authenticated()
           )
+          .oauth2ResourceServer(oauth2 -> oauth2
+              .jwt(jwt -> jwt.jwtAuthenticationConverter(token -> {
+                  User user = TokenService.toUser(token);
+                  return new UsernamePasswordAuthenticationToken(user, token, Collections.emptyList());
+              }))
+          )
           .httpBasic(withDefaults());
 
         http.userDetailsService(userService);
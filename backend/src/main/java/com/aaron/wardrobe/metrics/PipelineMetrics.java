@@ -0,0 +1,150 @@
+package com.aaron.wardrobe.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and histograms for each stage of serving a recommendation: authentication, loading the wardrobe, the
+ * weather lookup, filtering, each scorer and each slot selection.
+ *
+ * Every meter is registered up front, so recording never looks anything up. Callers take a start time with
+ * start() and hand it back to the matching record method. While metrics.pipeline.enabled is false start()
+ * returns 0 without reading the clock and every record method returns immediately, so the instrumentation
+ * costs a field read per stage. Each scorer runs as its own pass over a slot's options, and with
+ * metrics.pipeline.scorers on, the clock is read around every pass and the pass times are added up per outfit.
+ * That is a few clock reads per slot rather than per candidate, but it is still kept behind its own switch.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final List<String> SCORERS = List.of("temperature", "color", "compatibility", "weather");
+    private static final List<String> SLOT_TYPES = List.of("top", "bottom", "footwear", "headwear", "outerwear");
+
+    private final boolean enabled;
+    private final boolean scorersEnabled;
+
+    private final Timer basicAuth;
+    private final Timer bearerAuth;
+    private final Timer wardrobeLoad;
+    private final Timer filtering;
+    private final Timer optimize;
+    private final Timer weatherHit;
+    private final Timer weatherStaleHit;
+    private final Timer weatherMiss;
+    private final Timer weatherFallback;
+    private final Timer[] scorers = new Timer[SCORERS.size()];
+    private final Map<String, Timer> slots = new HashMap<>();
+    private final Timer otherSlot;
+    private final DistributionSummary wardrobeSize;
+    private final DistributionSummary candidates;
+
+    public PipelineMetrics(
+        MeterRegistry registry,
+        @Value("${metrics.pipeline.enabled:true}") boolean enabled,
+        @Value("${metrics.pipeline.scorers:false}") boolean scorersEnabled
+    ) {
+        this.enabled = enabled;
+        this.scorersEnabled = enabled && scorersEnabled;
+
+        basicAuth = stageTimer(registry, "wardrobe.auth", "method", "basic");
+        bearerAuth = stageTimer(registry, "wardrobe.auth", "method", "bearer");
+        wardrobeLoad = stageTimer(registry, "wardrobe.recommendation.stage", "stage", "wardrobe-load");
+        filtering = stageTimer(registry, "wardrobe.recommendation.stage", "stage", "filtering");
+        optimize = stageTimer(registry, "wardrobe.recommendation.stage", "stage", "optimize");
+        weatherHit = stageTimer(registry, "wardrobe.weather.lookup", "result", "hit");
+        weatherStaleHit = stageTimer(registry, "wardrobe.weather.lookup", "result", "stale-hit");
+        weatherMiss = stageTimer(registry, "wardrobe.weather.lookup", "result", "miss");
+        weatherFallback = stageTimer(registry, "wardrobe.weather.lookup", "result", "fallback");
+        for (int i = 0; i < SCORERS.size(); i++) {
+            scorers[i] = stageTimer(registry, "wardrobe.recommendation.scorer", "scorer", SCORERS.get(i));
+        }
+        for (String type : SLOT_TYPES) {
+            slots.put(type, stageTimer(registry, "wardrobe.recommendation.slot", "type", type));
+        }
+        otherSlot = stageTimer(registry, "wardrobe.recommendation.slot", "type", "other");
+
+        wardrobeSize = DistributionSummary.builder("wardrobe.recommendation.wardrobe.size")
+            .description("Items in the wardrobe index a recommendation was made from")
+            .baseUnit("items")
+            .publishPercentileHistogram()
+            .register(registry);
+        candidates = DistributionSummary.builder("wardrobe.recommendation.candidates")
+            .description("Options scored for one outfit slot")
+            .baseUnit("items")
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    private static Timer stageTimer(MeterRegistry registry, String name, String tag, String value) {
+        return Timer.builder(name).tag(tag, value).publishPercentileHistogram().register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isScorersEnabled() {
+        return scorersEnabled;
+    }
+
+    /**
+     * @return the start time to pass to a record method, or 0 when metrics are disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void recordBasicAuth(long start) { record(basicAuth, start); }
+    public void recordBearerAuth(long start) { record(bearerAuth, start); }
+    public void recordWardrobeLoad(long start) { record(wardrobeLoad, start); }
+    public void recordFiltering(long start) { record(filtering, start); }
+    public void recordOptimize(long start) { record(optimize, start); }
+    public void recordWeatherHit(long start) { record(weatherHit, start); }
+    public void recordWeatherStaleHit(long start) { record(weatherStaleHit, start); }
+    public void recordWeatherMiss(long start) { record(weatherMiss, start); }
+    public void recordWeatherFallback(long start) { record(weatherFallback, start); }
+
+    /**
+     * Records picking the item of one outfit slot and the number of options it was picked from
+     */
+    public void recordSlot(String type, long start, int candidateCount) {
+        if (!enabled) {
+            return;
+        }
+        record(slots.getOrDefault(type, otherSlot), start);
+        candidates.record(candidateCount);
+    }
+
+    /**
+     * Records the time each scorer spent on one outfit, indexed like SCORERS
+     */
+    public void recordScorers(long[] nanosByScorer) {
+        if (!scorersEnabled) {
+            return;
+        }
+        for (int i = 0; i < scorers.length; i++) {
+            scorers[i].record(nanosByScorer[i], TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordWardrobeSize(int items) {
+        if (enabled) {
+            wardrobeSize.record(items);
+        }
+    }
+
+    private void record(Timer timer, long start) {
+        if (enabled) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
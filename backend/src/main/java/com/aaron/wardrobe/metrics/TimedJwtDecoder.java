@@ -0,0 +1,29 @@
+package com.aaron.wardrobe.metrics;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Times verifying bearer access tokens
+ */
+public class TimedJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final PipelineMetrics metrics;
+
+    public TimedJwtDecoder(JwtDecoder delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long start = metrics.start();
+        try {
+            return delegate.decode(token);
+        } finally {
+            metrics.recordBearerAuth(start);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.aaron.wardrobe.metrics;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Times password checks, which is where HTTP Basic authentication spends its time
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PipelineMetrics metrics;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = metrics.start();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            metrics.recordBasicAuth(start);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
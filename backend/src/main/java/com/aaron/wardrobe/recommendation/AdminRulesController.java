@@ -0,0 +1,56 @@
+package com.aaron.wardrobe.recommendation;
+
+import com.aaron.wardrobe.recommendation.customization.RuleRegistry;
+import com.aaron.wardrobe.recommendation.customization.RuleReloadResult;
+import com.aaron.wardrobe.recommendation.customization.RuleSet;
+import com.aaron.wardrobe.user.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rule table endpoints for the users listed in wardrobe.admin.usernames
+ */
+@RestController
+@RequestMapping("/admin/rules")
+public class AdminRulesController {
+
+    @Autowired
+    private RuleRegistry ruleRegistry;
+
+    @Value("${wardrobe.admin.usernames:}")
+    private Set<String> adminUsernames;
+
+    @GetMapping
+    public Map<String, Object> getRules(@AuthenticationPrincipal User user) {
+        checkAdmin(user);
+        RuleSet rules = ruleRegistry.current();
+        return Map.of("version", rules.getVersion(), "source", rules.getSource());
+    }
+
+    /**
+     * Reloads the rule tables and publishes them if they are valid, or answers 422 with the reasons they are not
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<RuleReloadResult> reloadRules(@AuthenticationPrincipal User user) {
+        checkAdmin(user);
+        RuleReloadResult result = ruleRegistry.reload();
+        return result.isPublished() ? ResponseEntity.ok(result) : ResponseEntity.unprocessableEntity().body(result);
+    }
+
+    private void checkAdmin(User user) {
+        if (!adminUsernames.contains(user.getUsername())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only admins can manage the rules");
+        }
+    }
+}
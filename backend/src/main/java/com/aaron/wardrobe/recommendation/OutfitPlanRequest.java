@@ -0,0 +1,15 @@
+package com.aaron.wardrobe.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutfitPlanRequest {
+    private List<PlanSlot> slots;
+
+}
@@ -0,0 +1,217 @@
+package com.aaron.wardrobe.recommendation;
+
+import com.aaron.wardrobe.cache.LruCache;
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.clothingItem.ClothingItemService;
+import com.aaron.wardrobe.recommendation.customization.OutfitRanking;
+import com.aaron.wardrobe.recommendation.customization.weatherScore.WeatherService;
+import com.aaron.wardrobe.recommendation.customization.weatherScore.WeatherSnapshot;
+import com.aaron.wardrobe.user.User;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Computes the outfits users are likely to ask for ahead of the weekday morning rush. Off unless
+ * recommendation.precompute.cron is set (the default is "-"). While on, every GET /recommend is remembered as a
+ * (user, formality, city) combination for recommendation.precompute.active-window, and on the cron the weather of
+ * each remembered city is fetched and a ranking of up to recommendation.precompute.candidates outfits computed for
+ * every combination, at most recommendation.precompute.concurrency at a time.
+ *
+ * Each request draws one outfit from the ranking, so repeated requests still vary the way freshly computed ones
+ * do. A ranking is served for recommendation.precompute.ttl, as long as the user's wardrobe version is still the
+ * one it was computed from, so any wardrobe change invalidates that user's entries. The weather it was computed
+ * for is not rechecked within the TTL. Served outfits are published to RecommendationEventLog.
+ */
+@Component
+public class OutfitPrecomputer {
+
+    private static final Logger log = LoggerFactory.getLogger(OutfitPrecomputer.class);
+
+    private final RecommendOutfitService recommendOutfitService;
+    private final ClothingItemService clothingItemService;
+    private final WeatherService weatherService;
+    private final RecommendationEventLog events;
+    private final boolean enabled;
+    private final int candidates;
+    private final int concurrency;
+
+    private final LruCache<Key, Request> activeRequests;
+    private final LruCache<Key, PrecomputedOutfit> outfits;
+    private final LongAdder served = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    public OutfitPrecomputer(
+        RecommendOutfitService recommendOutfitService,
+        ClothingItemService clothingItemService,
+        WeatherService weatherService,
+        RecommendationEventLog events,
+        @Value("${recommendation.precompute.cron:-}") String cron,
+        @Value("${recommendation.precompute.candidates:5}") int candidates,
+        @Value("${recommendation.precompute.concurrency:4}") int concurrency,
+        @Value("${recommendation.precompute.active-window:7d}") Duration activeWindow,
+        @Value("${recommendation.precompute.ttl:3h}") Duration ttl,
+        @Value("${recommendation.precompute.max-entries:10000}") int maxEntries
+    ) {
+        this.recommendOutfitService = recommendOutfitService;
+        this.clothingItemService = clothingItemService;
+        this.weatherService = weatherService;
+        this.events = events;
+        this.enabled = !"-".equals(cron.trim());
+        this.candidates = Math.max(1, candidates);
+        this.concurrency = concurrency;
+        this.activeRequests = new LruCache<>(maxEntries, activeWindow);
+        this.outfits = new LruCache<>(maxEntries, ttl);
+    }
+
+    /**
+     * Remembers that the user asked for an outfit, so it is precomputed on the next run
+     */
+    public void recordRequest(User user, String formality, String city) {
+        if (!enabled) {
+            return;
+        }
+        // only the id and username are kept, not the password hash of the principal
+        User owner = new User(user.getId(), user.getUsername(), null, null);
+        activeRequests.put(key(user, formality, city), new Request(owner, formality, city));
+    }
+
+    /**
+     * @return an outfit drawn from the precomputed ranking, or null if there is none or the wardrobe changed since
+     *         it was computed
+     */
+    public List<ClothingItem> getPrecomputed(User user, String formality, String city) {
+        Key key = key(user, formality, city);
+        PrecomputedOutfit precomputed = outfits.get(key);
+        if (precomputed == null) {
+            return null;
+        }
+        if (precomputed.wardrobeVersion() != clothingItemService.getWardrobeVersion(user)) {
+            outfits.remove(key);
+            stale.increment();
+            return null;
+        }
+        served.increment();
+        List<ClothingItem> outfit = precomputed.ranking().pick(ThreadLocalRandom.current());
+        events.publish(user, "precomputed", formality, city, precomputed.temperature(), precomputed.weatherCondition(),
+            outfit);
+        return outfit;
+    }
+
+    /**
+     * Precomputes a ranking of outfits for every active combination. Cities are looked up first, once each, so a
+     * city shared by many users costs one weather call; the outfits themselves need only the database and the CPU.
+     */
+    @Scheduled(cron = "${recommendation.precompute.cron:-}", zone = "${recommendation.precompute.zone:}")
+    public void precompute() {
+        long start = System.nanoTime();
+        List<Request> requests = new ArrayList<>(activeRequests.snapshot().values());
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger computed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "outfit-precompute");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, String> cities = new LinkedHashMap<>();
+            requests.forEach(request -> cities.putIfAbsent(WeatherService.normalizeCity(request.city()), request.city()));
+            Map<String, WeatherSnapshot> weatherByCity = new ConcurrentHashMap<>();
+            awaitAll(cities.entrySet().stream().map(city -> pool.submit(() -> {
+                try {
+                    weatherByCity.put(city.getKey(), weatherService.getWeatherSnapshot(city.getValue()));
+                } catch (RuntimeException e) {
+                    log.warn("Skipping precomputed outfits for {}: {}", city.getValue(), e.getMessage());
+                }
+            })).toList());
+
+            awaitAll(requests.stream().map(request -> pool.submit(() -> {
+                WeatherSnapshot weather = weatherByCity.get(WeatherService.normalizeCity(request.city()));
+                if (weather == null) {
+                    failed.incrementAndGet();
+                    return;
+                }
+                try {
+                    // read before computing, so a change made meanwhile makes the entry stale rather than hiding
+                    long version = clothingItemService.getWardrobeVersion(request.user());
+                    OutfitRanking ranking = recommendOutfitService.rankOutfits(request.user(),
+                        weather.getTemperature(), request.formality(), weather.getCondition(), candidates);
+                    outfits.put(key(request.user(), request.formality(), request.city()),
+                        new PrecomputedOutfit(version, weather.getTemperature(), weather.getCondition(), ranking));
+                    computed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // e.g. a wardrobe without a required type
+                    failed.incrementAndGet();
+                }
+            })).toList());
+        } finally {
+            pool.shutdownNow();
+        }
+        log.info("Precomputed {} outfits for {} active requests in {}ms ({} failed)", computed.get(), requests.size(),
+            (System.nanoTime() - start) / 1_000_000, failed.get());
+    }
+
+    public LruCache<Key, PrecomputedOutfit> getOutfitCache() {
+        return outfits;
+    }
+
+    public long getServed() {
+        return served.sum();
+    }
+
+    public long getStale() {
+        return stale.sum();
+    }
+
+    public int getActiveRequests() {
+        return activeRequests.size();
+    }
+
+    private static void awaitAll(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.warn("Outfit precomputation task failed", e.getCause());
+            }
+        }
+    }
+
+    private static Key key(User user, String formality, String city) {
+        return new Key(user.getId(), formality, WeatherService.normalizeCity(city));
+    }
+
+    public record Key(Long userId, String formality, String city) {
+    }
+
+    public record PrecomputedOutfit(long wardrobeVersion, double temperature, String weatherCondition,
+            OutfitRanking ranking) {
+    }
+
+    private record Request(User user, String formality, String city) {
+    }
+}
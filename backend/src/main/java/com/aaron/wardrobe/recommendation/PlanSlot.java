@@ -0,0 +1,20 @@
+package com.aaron.wardrobe.recommendation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One day of an outfit plan: the occasion and the city the outfit is for
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanSlot {
+    private LocalDate date;
+    private String formality;
+    private String city;
+
+}
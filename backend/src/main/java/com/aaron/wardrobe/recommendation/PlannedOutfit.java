@@ -0,0 +1,26 @@
+package com.aaron.wardrobe.recommendation;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The outfit recommended for one PlanSlot, along with the weather it was picked for
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlannedOutfit {
+    private LocalDate date;
+    private String formality;
+    private String city;
+    private double temperature;
+    private String weather;
+    private List<ClothingItem> outfit;
+
+}
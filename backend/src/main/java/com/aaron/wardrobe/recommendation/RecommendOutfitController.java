@@ -3,15 +3,23 @@ package com.aaron.wardrobe.recommendation;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.aaron.wardrobe.clothingItem.ClothingItem;
-import com.aaron.wardrobe.recommendation.customization.weatherScore.WeatherService;
 import com.aaron.wardrobe.user.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/recommend")
@@ -21,17 +29,52 @@ public class RecommendOutfitController {
     private RecommendOutfitService service;
 
     @Autowired
-    private WeatherService weatherService;
+    private OutfitPrecomputer precomputer;
 
+    @Value("${recommendation.plan.max-slots:31}")
+    private int maxPlanSlots;
+
+    /**
+     * Answers from OutfitPrecomputer when it has a current outfit. Otherwise fetches the weather and loads the
+     * wardrobe concurrently: the request thread is released once the wardrobe is loaded, and the outfit is written
+     * when it is ready, or 504 if it misses recommendation.deadline.
+     */
     @GetMapping("/{formality}/{city}")
-    public List<ClothingItem> recommendOutfit(
+    public CompletableFuture<List<ClothingItem>> recommendOutfit(
         @PathVariable String formality, 
         @PathVariable String city,
         @AuthenticationPrincipal User user
     ) {
-        double temperature = weatherService.getCurrentTemperature(city);
-        String weatherCondition = weatherService.getSimplifiedWeatherCondition(city);
-        return service.recommendOutfit(user, temperature, formality, weatherCondition);
+        precomputer.recordRequest(user, formality, city);
+        List<ClothingItem> precomputed = precomputer.getPrecomputed(user, formality, city);
+        if (precomputed != null) {
+            return CompletableFuture.completedFuture(precomputed);
+        }
+
+        return service.recommendOutfitAsync(user, formality, city).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Timed out recommending an outfit");
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    @PostMapping("/plan")
+    public ResponseEntity<?> recommendPlan(@RequestBody OutfitPlanRequest request, @AuthenticationPrincipal User user) {
+        List<PlanSlot> slots = request.getSlots();
+        if (slots == null || slots.isEmpty()) {
+            return ResponseEntity.badRequest().body("A plan needs at least one slot");
+        }
+        if (slots.size() > maxPlanSlots) {
+            return ResponseEntity.badRequest().body("A plan can have at most " + maxPlanSlots + " slots");
+        }
+        for (PlanSlot slot : slots) {
+            if (slot.getCity() == null || slot.getCity().isBlank() || slot.getFormality() == null) {
+                return ResponseEntity.badRequest().body("Every slot needs a formality and a city");
+            }
+        }
+        return ResponseEntity.ok(service.recommendPlan(user, slots));
     }
 
 }
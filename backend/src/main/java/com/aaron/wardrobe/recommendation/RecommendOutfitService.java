@@ -3,12 +3,24 @@ package com.aaron.wardrobe.recommendation;
 import com.aaron.wardrobe.user.User;
 import com.aaron.wardrobe.clothingItem.ClothingItem;
 import com.aaron.wardrobe.clothingItem.ClothingItemService;
+import com.aaron.wardrobe.clothingItem.WardrobeIndex;
+import com.aaron.wardrobe.metrics.PipelineMetrics;
 import com.aaron.wardrobe.recommendation.customization.OutfitCustomizer;
+import com.aaron.wardrobe.recommendation.customization.OutfitRanking;
+import com.aaron.wardrobe.recommendation.customization.weatherScore.WeatherService;
+import com.aaron.wardrobe.recommendation.customization.weatherScore.WeatherSnapshot;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Creates a fully customized outfit with all provided ClothingItems in the wardrobe based on temperature,
@@ -19,64 +31,269 @@ public class RecommendOutfitService {
 
     private final ClothingItemService service;
     private final OutfitCustomizer customizer;
+    private final WeatherService weatherService;
+    private final TaskExecutor executor;
+    private final PipelineMetrics metrics;
+    private final RecommendationMemo memo;
+    private final RecommendationEventLog events;
+    private final Duration deadline;
     private final List<String> requiredTypes = List.of("top", "bottom", "footwear");
+    private final List<String> outfitTypes;
 
-    public RecommendOutfitService(ClothingItemService service, OutfitCustomizer customizer) {
+    public RecommendOutfitService(ClothingItemService service, OutfitCustomizer customizer, WeatherService weatherService,
+            @Qualifier("recommendationExecutor") TaskExecutor executor, PipelineMetrics metrics, RecommendationMemo memo,
+            RecommendationEventLog events, @Value("${recommendation.deadline:3s}") Duration deadline) {
         this.service = service;
         this.customizer = customizer;
+        this.weatherService = weatherService;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.memo = memo;
+        this.events = events;
+        this.deadline = deadline;
+
+        List<String> types = new ArrayList<>(requiredTypes);
+        types.addAll(customizer.getOptionalTypes());
+        this.outfitTypes = List.copyOf(types);
     }
 
     /**
      * Filters the wardrobe based on occasion/formality, then picks the best ClothingItem for each
-     * requiredType.
-     * 
+     * requiredType. With RecommendationMemo enabled, a remembered ranking for the same conditions is drawn from
+     * without loading the wardrobe.
+     *
      * @param temperature is the current temperature in Farenheit
      * @param formality is the required formality of the outfit
      * @param weather is the current weather
      * @return a list of ClothingItems representing the final curated outfit
      */
     public List<ClothingItem> recommendOutfit(User user, double temperature, String formality, String weather) {
-        List<ClothingItem> allClothes = service.getAllClothesForUser(user);
+        RecommendationMemo.Key key = null;
+        if (memo.isEnabled()) {
+            // the version is read before the wardrobe is loaded, so a write that lands in between can only leave
+            // the memo entry under an outdated version that is never asked for again, never under the new one
+            key = memo.key(user, service.getWardrobeVersion(user), formality, temperature, weather);
+            OutfitRanking ranking = memo.get(key);
+            if (ranking != null) {
+                return ranking.pick(ThreadLocalRandom.current());
+            }
+        }
+
+        WardrobeIndex wardrobe = loadWardrobe(user, formality);
 
         // Check to make sure user has at least one ClothingItem per requiredType
-        checkForEmptyRequiredTypes(allClothes);
+        checkForEmptyRequiredTypes(wardrobe);
+
+        return customize(key, buildOptions(wardrobe, formality, Set.of()), temperature, weather);
+    }
+
+    /**
+     * Ranks up to count distinct outfits for the given conditions instead of picking one, for callers that keep
+     * the ranking and draw from it later with OutfitRanking.pick
+     *
+     * @param temperature is the current temperature in Farenheit
+     * @param formality is the required formality of the outfit
+     * @param weather is the current weather
+     * @param count is the number of outfits to draw
+     * @return the ranking of the distinct outfits found
+     */
+    public OutfitRanking rankOutfits(User user, double temperature, String formality, String weather, int count) {
+        WardrobeIndex wardrobe = loadWardrobe(user, formality);
+        checkForEmptyRequiredTypes(wardrobe);
+        return customizer.rankOutfits(buildOptions(wardrobe, formality, Set.of()), temperature, weather, count);
+    }
+
+    /**
+     * Recommends an outfit for the current weather of a city. The weather lookup runs on the recommendation
+     * executor while the calling thread loads the wardrobe, so the request waits for the slower of the two rather
+     * than for both, and the outfit is scored on whichever thread finishes last. With RecommendationMemo enabled,
+     * a remembered ranking for the weather that comes back is drawn from instead of scoring the wardrobe. The
+     * served outfit is published to RecommendationEventLog.
+     *
+     * @param formality is the required formality of the outfit
+     * @param city is the city whose current weather the outfit is for
+     * @return the curated outfit, or a future that fails with a TimeoutException if it is not ready within
+     *         recommendation.deadline of the call
+     */
+    public CompletableFuture<List<ClothingItem>> recommendOutfitAsync(User user, String formality, String city) {
+        CompletableFuture<WeatherSnapshot> weather =
+            CompletableFuture.supplyAsync(() -> weatherService.getWeatherSnapshot(city), executor);
+        // started after the weather so the deadline covers the wardrobe load too
+        CompletableFuture<List<ClothingItem>> outfit = new CompletableFuture<List<ClothingItem>>()
+            .orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+
+        // read before loading, see recommendOutfit
+        long wardrobeVersion = memo.isEnabled() ? service.getWardrobeVersion(user) : 0;
+        WardrobeIndex wardrobe;
+        try {
+            wardrobe = loadWardrobe(user, formality);
+            checkForEmptyRequiredTypes(wardrobe);
+        } catch (RuntimeException e) {
+            outfit.completeExceptionally(e);
+            return outfit;
+        }
+
+        weather.whenComplete((snapshot, error) -> {
+            if (error != null) {
+                outfit.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                return;
+            }
+            try {
+                RecommendationMemo.Key key = null;
+                if (memo.isEnabled()) {
+                    key = memo.key(user, wardrobeVersion, formality, snapshot.getTemperature(), snapshot.getCondition());
+                    OutfitRanking ranking = memo.get(key);
+                    if (ranking != null) {
+                        outfit.complete(ranking.pick(ThreadLocalRandom.current()));
+                        return;
+                    }
+                }
+                outfit.complete(customize(key, buildOptions(wardrobe, formality, Set.of()),
+                    snapshot.getTemperature(), snapshot.getCondition()));
+            } catch (RuntimeException e) {
+                outfit.completeExceptionally(e);
+            }
+        });
+        // the weather is complete whenever the outfit completes normally
+        outfit.thenAccept(items -> events.publish(user, "recommend", formality, city,
+            weather.join().getTemperature(), weather.join().getCondition(), items));
+        return outfit;
+    }
+
+    /**
+     * Recommends one outfit per slot of a multi-day plan. The wardrobe is loaded once per formality, the weather of each distinct
+     * city is looked up once with the lookups running in parallel, and items already used earlier in the plan are
+     * left out of later outfits wherever the wardrobe has an alternative. The weather used for every slot is the
+     * city's current weather, since WeatherService has no forecast data. Plans are not memoized, as each slot's
+     * options depend on the slots before it. Every planned outfit is published to RecommendationEventLog.
+     *
+     * @param slots are the days of the plan, in the order they should be filled
+     * @return the planned outfits in the same order as slots
+     */
+    public List<PlannedOutfit> recommendPlan(User user, List<PlanSlot> slots) {
+        Map<String, WardrobeIndex> wardrobeByFormality = new HashMap<>();
+        for (PlanSlot slot : slots) {
+            WardrobeIndex wardrobe = wardrobeByFormality.computeIfAbsent(slot.getFormality(), f -> loadWardrobe(user, f));
+            checkForEmptyRequiredTypes(wardrobe);
+        }
 
-        // Filtering logic: filters out clothes that do not match the occasion
-        List<ClothingItem> filteredClothes = allClothes
-            .stream()
-            .filter(item -> item.getFormality() != null && 
-                (item.getFormality().equals(formality)) || item.getFormality().equals("any"))
-            .collect(Collectors.toList());
+        Map<String, CompletableFuture<WeatherSnapshot>> weatherByCity = new HashMap<>();
+        for (PlanSlot slot : slots) {
+            weatherByCity.computeIfAbsent(WeatherService.normalizeCity(slot.getCity()), city ->
+                CompletableFuture.supplyAsync(() -> weatherService.getWeatherSnapshot(slot.getCity()), executor));
+        }
+
+        Set<Long> usedItemIds = new HashSet<>();
+        List<PlannedOutfit> plan = new ArrayList<>();
+        for (PlanSlot slot : slots) {
+            WeatherSnapshot weather = await(weatherByCity.get(WeatherService.normalizeCity(slot.getCity())));
+            WardrobeIndex wardrobe = wardrobeByFormality.get(slot.getFormality());
+            List<ClothingItem> outfit = customizer.customizeOutfit(
+                buildOptions(wardrobe, slot.getFormality(), usedItemIds), weather.getTemperature(), weather.getCondition());
+
+            outfit.forEach(item -> usedItemIds.add(item.getId()));
+            events.publish(user, "plan", slot.getFormality(), slot.getCity(), weather.getTemperature(),
+                weather.getCondition(), outfit);
+            plan.add(new PlannedOutfit(slot.getDate(), slot.getFormality(), slot.getCity(),
+                weather.getTemperature(), weather.getCondition(), outfit));
+        }
+        return plan;
+    }
+
+    /**
+     * Customizes an outfit, or with a memo key ranks several and remembers the ranking under the key
+     */
+    private List<ClothingItem> customize(RecommendationMemo.Key key, Map<String, List<ClothingItem>> mapOfOptions,
+            double temperature, String weather) {
+        if (key == null) {
+            return customizer.customizeOutfit(mapOfOptions, temperature, weather);
+        }
+        OutfitRanking ranking = customizer.rankOutfits(mapOfOptions, temperature, weather, memo.getCandidates());
+        memo.put(key, ranking);
+        return ranking.pick(ThreadLocalRandom.current());
+    }
 
-        Map<String, List<ClothingItem>> mapOfOptions = filteredClothes.stream()
-            .collect(Collectors.groupingBy(ClothingItem::getType));
+    private WardrobeIndex loadWardrobe(User user, String formality) {
+        long start = metrics.start();
+        WardrobeIndex wardrobe = service.getWardrobeIndex(user, formality, outfitTypes, requiredTypes);
+        metrics.recordWardrobeLoad(start);
+        metrics.recordWardrobeSize(wardrobe.size());
+        return wardrobe;
+    }
+
+    /**
+     * Groups the wardrobe by type, keeping only items that match the occasion and have not been used yet.
+     *
+     * @param wardrobe is the index of all items in the wardrobe
+     * @param formality is the required formality of the outfit
+     * @param excludedIds are the ids of items that should not be picked again
+     * @return a map of clothing type to the options for that type
+     */
+    private Map<String, List<ClothingItem>> buildOptions(WardrobeIndex wardrobe, String formality, Set<Long> excludedIds) {
+        long start = metrics.start();
+
+        // Filtering logic: keeps clothes that match the occasion or are suitable for any occasion
+        Map<String, List<ClothingItem>> mapOfOptions = new HashMap<>();
+        for (String type : wardrobe.types()) {
+            List<ClothingItem> options = new ArrayList<>();
+            addUnused(options, wardrobe.itemsOfType(type, formality), excludedIds);
+            if (!"any".equals(formality)) {
+                addUnused(options, wardrobe.itemsOfType(type, "any"), excludedIds);
+            }
+            if (!options.isEmpty()) {
+                mapOfOptions.put(type, options);
+            }
+        }
 
         // Check if any required types have no options after filtering. If yes, use unfiltered options instead
         for (String requiredType : requiredTypes) {
-            List<ClothingItem> items = mapOfOptions.get(requiredType);
+            if (!mapOfOptions.containsKey(requiredType)) {
+                List<ClothingItem> fallbackItems = new ArrayList<>();
+                addUnused(fallbackItems, wardrobe.itemsOfType(requiredType), excludedIds);
 
-            if (items == null || items.isEmpty()) {
-                List<ClothingItem> fallbackItems = allClothes.stream()
-                    .filter(item -> item.getType().equals(requiredType))
-                    .collect(Collectors.toList());
+                // Repeat an item rather than leave a required type out of the outfit
+                if (fallbackItems.isEmpty()) {
+                    fallbackItems = wardrobe.itemsOfType(requiredType);
+                }
 
                 mapOfOptions.put(requiredType, fallbackItems);
             }
         }
+        metrics.recordFiltering(start);
+        return mapOfOptions;
+    }
 
-        return customizer.customizeOutfit(mapOfOptions, temperature, weather);
+    private static void addUnused(List<ClothingItem> options, List<ClothingItem> items, Set<Long> excludedIds) {
+        if (excludedIds.isEmpty()) {
+            options.addAll(items);
+            return;
+        }
+        for (ClothingItem item : items) {
+            if (!excludedIds.contains(item.getId())) {
+                options.add(item);
+            }
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     /**
      * Checks to make sure at least one ClothingItem exists in wardrobe for each requiredType.
-     * 
-     * @param allItems is the list of all items in wardrobe before filtering
+     *
+     * @param wardrobe is the index of all items in the wardrobe
      */
-    private void checkForEmptyRequiredTypes(List<ClothingItem> allItems) {
+    private void checkForEmptyRequiredTypes(WardrobeIndex wardrobe) {
         for (String requiredType : requiredTypes) {
-            boolean exists = allItems.stream()
-                .anyMatch(item -> item.getType().equals(requiredType));
-            if (!exists) {
+            if (wardrobe.itemsOfType(requiredType).isEmpty()) {
                 throw new IllegalStateException("You cannot make an outfit without any " + requiredType);
             }
         }
@@ -0,0 +1,35 @@
+package com.aaron.wardrobe.recommendation;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One outfit that was served, with the conditions it was recommended for. Rows are only ever appended, by
+ * RecommendationEventLog, and are kept for analytics and for tuning the rule tables. The outfit is stored both as
+ * item ids and as subtype/color pairs, so it can still be read after the items are deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_recommendation_event_created_at", columnList = "created_at"))
+public class RecommendationEvent {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Instant createdAt;
+    private Long userId;
+    private String source; // recommend, plan or precomputed
+    private String formality;
+    private String city;
+    private double temperature;
+    private String weatherCondition;
+    private String itemIds; // comma separated, in outfit order
+
+    @Column(length = 1000)
+    private String items; // comma separated subtype/color pairs, in outfit order
+}
@@ -0,0 +1,232 @@
+package com.aaron.wardrobe.recommendation;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.user.User;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind log of served recommendations. publish() only appends the event to an in-memory queue, so request
+ * threads never wait on the database: the queue is a lock-free ConcurrentLinkedQueue bounded by an atomic count
+ * of recommendation.events.capacity, and events published while it is full are dropped and counted rather than
+ * blocking. A single background thread drains the queue into the recommendation_event table in JDBC batches of up
+ * to recommendation.events.batch-size, as soon as a batch is full and otherwise every
+ * recommendation.events.flush-interval.
+ *
+ * Events still queued at shutdown are written before the context closes, unless the writer is still busy after
+ * ten seconds. Events of a batch that fails to insert are counted as failed and not retried, since the log is for
+ * analytics and must not hold memory while the database is down; the writer logs any other failure and keeps
+ * going.
+ */
+@Component
+public class RecommendationEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationEventLog.class);
+
+    private static final String INSERT_SQL =
+        "insert into recommendation_event (created_at, user_id, source, formality, city, temperature, "
+        + "weather_condition, item_ids, items) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final ConcurrentLinkedQueue<RecommendationEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public RecommendationEventLog(
+        JdbcTemplate jdbcTemplate,
+        @Value("${recommendation.events.enabled:true}") boolean enabled,
+        @Value("${recommendation.events.capacity:10000}") int capacity,
+        @Value("${recommendation.events.batch-size:500}") int batchSize,
+        @Value("${recommendation.events.flush-interval:1s}") Duration flushInterval
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = flushInterval.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "recommendation-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (writer.isAlive()) {
+            // still inside a slow batch; draining here as well would race it for the queue
+            log.warn("Recommendation event writer did not stop in time, {} events left unwritten", depth.get());
+            return;
+        }
+        // whatever was published after the writer's last drain
+        int count;
+        do {
+            count = drain();
+        } while (count > 0);
+    }
+
+    /**
+     * Queues a served outfit to be written, or drops it if the queue is full. Never blocks.
+     *
+     * @param source is where the outfit was served from: recommend, plan or precomputed
+     */
+    public void publish(User user, String source, String formality, String city, double temperature,
+            String weatherCondition, List<ClothingItem> outfit) {
+        if (!enabled) {
+            return;
+        }
+        int queued = depth.incrementAndGet();
+        if (queued > capacity) {
+            depth.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+
+        StringJoiner itemIds = new StringJoiner(",");
+        StringJoiner items = new StringJoiner(",");
+        for (ClothingItem item : outfit) {
+            itemIds.add(String.valueOf(item.getId()));
+            items.add(item.getSubtype() + "/" + item.getColor());
+        }
+        queue.offer(new RecommendationEvent(null, Instant.now(), user.getId(), source, formality, city, temperature,
+            weatherCondition, itemIds.toString(), items.toString()));
+        published.increment();
+
+        // wake the writer early rather than letting a full batch wait for the flush interval
+        if (queued == batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            int count;
+            try {
+                count = drain();
+            } catch (RuntimeException e) {
+                // the writer is the only consumer, so it must outlive any one bad batch
+                log.error("Recommendation event writer failed, continuing", e);
+                count = 0;
+            }
+            if (count < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Writes up to one batch of queued events
+     *
+     * @return the number of events taken off the queue
+     */
+    private int drain() {
+        List<Object[]> batch = new ArrayList<>();
+        RecommendationEvent event;
+        while (batch.size() < batchSize && (event = queue.poll()) != null) {
+            batch.add(new Object[] {
+                Timestamp.from(event.getCreatedAt()), event.getUserId(), event.getSource(), event.getFormality(),
+                event.getCity(), event.getTemperature(), event.getWeatherCondition(), event.getItemIds(),
+                event.getItems()
+            });
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        depth.addAndGet(-batch.size());
+
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            written.add(batch.size());
+        } catch (DataAccessException e) {
+            failed.add(batch.size());
+            log.warn("Could not write {} recommendation events: {}", batch.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            throw e;
+        } finally {
+            flushes.increment();
+            flushNanos.add(System.nanoTime() - start);
+        }
+        return batch.size();
+    }
+
+    /**
+     * @return the number of events waiting to be written
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public double getFlushNanos() {
+        return flushNanos.sum();
+    }
+}
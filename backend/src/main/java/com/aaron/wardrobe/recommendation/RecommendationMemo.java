@@ -0,0 +1,86 @@
+package com.aaron.wardrobe.recommendation;
+
+import com.aaron.wardrobe.cache.LruCache;
+import com.aaron.wardrobe.recommendation.customization.OutfitRanking;
+import com.aaron.wardrobe.recommendation.customization.RuleRegistry;
+import com.aaron.wardrobe.user.User;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers the ranked outfits of recent recommendations, so a user who asks again under the same conditions is
+ * answered by drawing from the ranking instead of loading and scoring the wardrobe again. Entries are keyed by
+ * (user, wardrobe version, rule version, formality, weather condition, temperature bucket), where a bucket spans
+ * recommendation.memo.temperature-bucket degrees, so any wardrobe change or rule reload moves requests onto new
+ * keys and the old entries age out of the LRU.
+ *
+ * Off unless recommendation.memo.enabled is set. Each ranking holds up to recommendation.memo.candidates outfits,
+ * which is also how many times the slots are filled on a miss.
+ */
+@Component
+public class RecommendationMemo {
+
+    private final RuleRegistry ruleRegistry;
+    private final boolean enabled;
+    private final double temperatureBucket;
+    private final int candidates;
+    private final LruCache<Key, OutfitRanking> rankings;
+
+    public RecommendationMemo(
+        RuleRegistry ruleRegistry,
+        @Value("${recommendation.memo.enabled:false}") boolean enabled,
+        @Value("${recommendation.memo.temperature-bucket:2}") double temperatureBucket,
+        @Value("${recommendation.memo.candidates:5}") int candidates,
+        @Value("${recommendation.memo.ttl:10m}") Duration ttl,
+        @Value("${recommendation.memo.max-entries:10000}") int maxEntries
+    ) {
+        if (temperatureBucket <= 0) {
+            throw new IllegalArgumentException("recommendation.memo.temperature-bucket must be positive");
+        }
+        this.ruleRegistry = ruleRegistry;
+        this.enabled = enabled;
+        this.temperatureBucket = temperatureBucket;
+        this.candidates = Math.max(1, candidates);
+        this.rankings = new LruCache<>(maxEntries, ttl);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @param wardrobeVersion is the user's wardrobe version, read before the wardrobe was loaded so a change made
+     *        meanwhile leaves the entry on a key that is no longer asked for
+     * @return the key of a recommendation under the given conditions with the current rules
+     */
+    public Key key(User user, long wardrobeVersion, String formality, double temperature, String weather) {
+        long bucket = (long) Math.floor(temperature / temperatureBucket);
+        return new Key(user.getId(), wardrobeVersion, ruleRegistry.current().getVersion(), formality, weather, bucket);
+    }
+
+    /**
+     * @return the remembered ranking, or null if there is none or it has expired
+     */
+    public OutfitRanking get(Key key) {
+        return rankings.get(key);
+    }
+
+    public void put(Key key, OutfitRanking ranking) {
+        rankings.put(key, ranking);
+    }
+
+    public LruCache<Key, OutfitRanking> getRankingCache() {
+        return rankings;
+    }
+
+    public record Key(Long userId, long wardrobeVersion, long ruleVersion, String formality, String weather,
+            long temperatureBucket) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import java.util.Random;
+
+/**
+ * Picks one candidate for an outfit slot in a single pass over the scored candidates, using only fixed-size
+ * primitive buffers.
+ *
+ * The pool a slot is picked from is every candidate with the best (lowest) score, topped up to five with
+ * candidates of the second best score. Three candidates are drawn from that pool at random, and one of those
+ * three is chosen with a weight of (1 + the sum of the three scores) minus its own score, so lower scores are
+ * favoured. Both score groups are kept as reservoir samples of at most five candidates, which draws from
+ * arbitrarily large ties uniformly without storing them.
+ *
+ * A selector is not thread safe. Reuse one per outfit by calling reset() before each slot. To score a slot in
+ * parallel, give every part of the candidates its own selector and merge them, which leaves the same sample
+ * distribution as offering every candidate to one selector.
+ */
+class CandidateSelector {
+
+    static final int POOL_SIZE = 5;
+    static final int PICK_SIZE = 3;
+
+    private int[] best = new int[POOL_SIZE];
+    private int bestScore;
+    private int bestCount;
+
+    private int[] second = new int[POOL_SIZE];
+    private int secondScore;
+    private int secondCount;
+
+    private final int[] pool = new int[POOL_SIZE];
+    private final int[] poolScores = new int[POOL_SIZE];
+
+    private int selectedScore;
+
+    void reset() {
+        bestCount = 0;
+        secondCount = 0;
+    }
+
+    /**
+     * Considers one candidate for the slot
+     *
+     * @param index is the candidate's position in the slot's list of options
+     * @param score is the candidate's score, with lower scores being more desireable
+     * @param random is the source of randomness for reservoir sampling
+     */
+    void offer(int index, int score, Random random) {
+        if (bestCount == 0 || score < bestScore) {
+            // the old best group becomes the second best group
+            int[] previousBest = best;
+            best = second;
+            second = previousBest;
+            secondScore = bestScore;
+            secondCount = bestCount;
+
+            bestScore = score;
+            bestCount = sample(best, 0, index, random);
+        }
+        else if (score == bestScore) {
+            bestCount = sample(best, bestCount, index, random);
+        }
+        else if (secondCount == 0 || score < secondScore) {
+            secondScore = score;
+            secondCount = sample(second, 0, index, random);
+        }
+        else if (score == secondScore) {
+            secondCount = sample(second, secondCount, index, random);
+        }
+    }
+
+    /**
+     * Adds the candidates offered to another selector to this one, as if they had been offered here
+     *
+     * @param other is a selector whose candidates were offered since its last reset
+     * @param random is the source of randomness for merging the samples
+     */
+    void merge(CandidateSelector other, Random random) {
+        if (other.bestCount > 0) {
+            mergeGroup(other.best, other.bestScore, other.bestCount, random);
+        }
+        if (other.secondCount > 0) {
+            mergeGroup(other.second, other.secondScore, other.secondCount, random);
+        }
+    }
+
+    /**
+     * Adds a group of candidates sharing one score, count of them in total of which sample holds a uniform sample
+     */
+    private void mergeGroup(int[] sample, int score, int count, Random random) {
+        if (bestCount == 0 || score < bestScore) {
+            int[] previousBest = best;
+            best = second;
+            second = previousBest;
+            secondScore = bestScore;
+            secondCount = bestCount;
+
+            bestScore = score;
+            bestCount = copyGroup(best, sample, count);
+        }
+        else if (score == bestScore) {
+            bestCount = mergeSamples(best, bestCount, sample, count, random);
+        }
+        else if (secondCount == 0 || score < secondScore) {
+            secondScore = score;
+            secondCount = copyGroup(second, sample, count);
+        }
+        else if (score == secondScore) {
+            secondCount = mergeSamples(second, secondCount, sample, count, random);
+        }
+    }
+
+    private static int copyGroup(int[] reservoir, int[] sample, int count) {
+        System.arraycopy(sample, 0, reservoir, 0, Math.min(count, POOL_SIZE));
+        return count;
+    }
+
+    /**
+     * Replaces reservoir with a uniform sample of the union of two groups. How many of the kept candidates come
+     * from each group is drawn without replacement in proportion to the group sizes, and that many are then taken
+     * at random from each group's sample.
+     *
+     * @return the size of the union
+     */
+    private static int mergeSamples(int[] reservoir, int count, int[] sample, int otherCount, Random random) {
+        int keep = Math.min(POOL_SIZE, count + otherCount);
+        int fromOther = 0;
+        int remaining = count;
+        int otherRemaining = otherCount;
+        for (int i = 0; i < keep; i++) {
+            if (random.nextInt(remaining + otherRemaining) < otherRemaining) {
+                fromOther++;
+                otherRemaining--;
+            } else {
+                remaining--;
+            }
+        }
+
+        int[] merged = new int[POOL_SIZE];
+        int size = takeRandom(reservoir, Math.min(count, POOL_SIZE), keep - fromOther, merged, 0, random);
+        takeRandom(sample.clone(), Math.min(otherCount, POOL_SIZE), fromOther, merged, size, random);
+        System.arraycopy(merged, 0, reservoir, 0, keep);
+        return count + otherCount;
+    }
+
+    /**
+     * Moves picks random entries of the first size entries of from (which it shuffles) to to, starting at offset
+     *
+     * @return offset + picks
+     */
+    private static int takeRandom(int[] from, int size, int picks, int[] to, int offset, Random random) {
+        for (int i = 0; i < picks; i++) {
+            int j = i + random.nextInt(size - i);
+            int index = from[j];
+            from[j] = from[i];
+            from[i] = index;
+            to[offset + i] = index;
+        }
+        return offset + picks;
+    }
+
+    /**
+     * Draws the slot's item from the candidates offered since the last reset
+     *
+     * @param random is the source of randomness for the draw
+     * @return the index of the chosen candidate, or -1 if no candidates were offered
+     */
+    int select(Random random) {
+        int poolSize = 0;
+        for (int i = 0; i < Math.min(bestCount, POOL_SIZE); i++) {
+            pool[poolSize] = best[i];
+            poolScores[poolSize] = bestScore;
+            poolSize++;
+        }
+        // the top-up takes random entries of the second group's sample, since the order of a reservoir is not random
+        int secondSize = Math.min(secondCount, POOL_SIZE);
+        for (int i = 0; poolSize < POOL_SIZE && i < secondSize; i++) {
+            int j = i + random.nextInt(secondSize - i);
+            int index = second[j];
+            second[j] = second[i];
+            second[i] = index;
+            pool[poolSize] = index;
+            poolScores[poolSize] = secondScore;
+            poolSize++;
+        }
+        if (poolSize == 0) {
+            return -1;
+        }
+
+        // partial Fisher-Yates shuffle moves a random subset of up to PICK_SIZE candidates to the front
+        int picks = Math.min(PICK_SIZE, poolSize);
+        for (int i = 0; i < picks; i++) {
+            int j = i + random.nextInt(poolSize - i);
+            swap(i, j);
+        }
+
+        // start totalScore at 1 for the edge case where totalScore - score = 0
+        int totalScore = 1;
+        for (int i = 0; i < picks; i++) {
+            totalScore += poolScores[i];
+        }
+        int totalWeights = 0;
+        for (int i = 0; i < picks; i++) {
+            totalWeights += totalScore - poolScores[i];
+        }
+
+        int target = random.nextInt(totalWeights);
+        for (int i = 0; i < picks; i++) {
+            target -= totalScore - poolScores[i];
+            if (target < 0) {
+                selectedScore = poolScores[i];
+                return pool[i];
+            }
+        }
+        throw new IllegalStateException("Weighted selection ran past the total weight");
+    }
+
+    /**
+     * @return the score of the candidate returned by the last call to select
+     */
+    int getSelectedScore() {
+        return selectedScore;
+    }
+
+    private static int sample(int[] reservoir, int count, int index, Random random) {
+        if (count < POOL_SIZE) {
+            reservoir[count] = index;
+        }
+        else {
+            int slot = random.nextInt(count + 1);
+            if (slot < POOL_SIZE) {
+                reservoir[slot] = index;
+            }
+        }
+        return count + 1;
+    }
+
+    private void swap(int i, int j) {
+        int index = pool[i];
+        int score = poolScores[i];
+        pool[i] = pool[j];
+        poolScores[i] = poolScores[j];
+        pool[j] = index;
+        poolScores[j] = score;
+    }
+}
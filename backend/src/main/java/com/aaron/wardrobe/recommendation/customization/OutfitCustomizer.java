@@ -1,17 +1,24 @@
 package com.aaron.wardrobe.recommendation.customization;
 
 import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.metrics.PipelineMetrics;
 import com.aaron.wardrobe.recommendation.customization.colorScore.ScoreByColor;
 import com.aaron.wardrobe.recommendation.customization.compatabilityScore.ScoreByCompatibility;
 import com.aaron.wardrobe.recommendation.customization.weatherScore.ScoreByTemperature;
 import com.aaron.wardrobe.recommendation.customization.weatherScore.ScoreByWeather;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
-import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -21,28 +28,59 @@ import org.springframework.stereotype.Component;
 @Component
 public class OutfitCustomizer {
 
-    private final ScoreByTemperature scoreByTemperature = new ScoreByTemperature();
-    private final ScoreByCompatibility scoreByCompatibility = new ScoreByCompatibility();
-    private final ScoreByColor scoreByColor = new ScoreByColor();
-    private final ScoreByWeather scoreByWeather = new ScoreByWeather();
+    private OutfitOptimizer optimizer;
+    private ForkJoinPool scoringPool;
+
+    @Autowired
+    private RuleRegistry ruleRegistry;
+
+    @Autowired
+    private PipelineMetrics metrics;
 
     private final List<String> optionalTypes = List.of("headwear", "outerwear");
 
+    // greedy fills one slot at a time, search looks for the best combination of all slots
+    @Value("${recommendation.optimizer.mode:greedy}")
+    private String mode;
+
+    @Value("${recommendation.optimizer.beam-width:16}")
+    private int beamWidth;
+
+    @Value("${recommendation.optimizer.time-budget:25ms}")
+    private Duration timeBudget;
+
+    // slots with at least this many options are scored in parallel, split into ranges of at most leaf-size
+    @Value("${recommendation.scoring.parallel-threshold:8192}")
+    private int parallelThreshold;
+
+    @Value("${recommendation.scoring.parallel-leaf-size:2048}")
+    private int parallelLeafSize;
+
+    // 0 for one thread per available processor
+    @Value("${recommendation.scoring.parallelism:0}")
+    private int parallelism;
+
     @PostConstruct
     public void init() {
-        try {
-            scoreByCompatibility.loadFromCSV();
-            scoreByColor.loadFromCSV();
-            scoreByWeather.loadFromCSV();
-            scoreByTemperature.loadFromCSV();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load one or both CSV files", e);
-        }
+        optimizer = new OutfitOptimizer(beamWidth, timeBudget);
+        scoringPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scoringPool.shutdownNow();
     }
 
     public OutfitCustomizer() {
     }
 
+    /**
+     * @return the clothing types an outfit may leave out
+     */
+    public List<String> getOptionalTypes() {
+        return optionalTypes;
+    }
+
     /**
      * Given a mapOfOptions, iterate through the keys, representing clothing type, and pick up to one clothing 
      * item to add to the outfit. Picks items based on their score, with lower scores being more desireable.
@@ -57,171 +95,368 @@ public class OutfitCustomizer {
      * @return the list containing the full final outfit
      */
     public List<ClothingItem> customizeOutfit(Map<String, List<ClothingItem>> mapOfOptions, double temp, String weather) {
-        List<ClothingItem> outfit = new ArrayList<>();
+        // one snapshot for the whole outfit, even if the rules are reloaded meanwhile
+        RuleSet rules = ruleRegistry.current();
+        if ("search".equals(mode)) {
+            long start = metrics.start();
+            List<ClothingItem> outfit = optimizer.optimize(rules, mapOfOptions, optionalTypes, temp, weather);
+            metrics.recordOptimize(start);
+            return outfit;
+        }
+        return customizeOutfitGreedily(rules, mapOfOptions, temp, weather);
+    }
 
+    /**
+     * The fast mode: fills the slots one at a time in map order, scoring each slot's options against the items
+     * already chosen.
+     *
+     * Every option's rule ids and its temperature and weather score are worked out once, up front, into a
+     * running penalty per option. Whenever an item is added to the outfit, only its color and compatibility
+     * penalty against the options of the slots still to be filled is added to theirs, so filling a slot just reads
+     * the penalties instead of scoring each option against the whole outfit so far.
+     */
+    private List<ClothingItem> customizeOutfitGreedily(RuleSet rules, Map<String, List<ClothingItem>> mapOfOptions,
+            double temp, String weather) {
+        long[] scorerNanos = new long[PipelineMetrics.SCORERS.size()];
+        List<String> keys = new ArrayList<>();
+        List<SlotPenalties> slots = prepareSlots(rules, mapOfOptions, temp, weather, keys, scorerNanos);
+        FilledOutfit outfit = fillSlots(rules, keys, slots, temp, new CandidateSelector(), scorerNanos);
+        metrics.recordScorers(scorerNanos);
+        return outfit.items();
+    }
+
+    /**
+     * Finds up to count distinct outfits for the same options and conditions and ranks them by total score, so
+     * the ranking can be kept and drawn from again with OutfitRanking.pick instead of customizing again. In the
+     * greedy mode the options are scored against the temperature and weather once for all count outfits, and each
+     * outfit fills the slots from a copy of those penalties. The search mode has no runners-up, so its ranking
+     * holds the one outfit it finds.
+     *
+     * @param count is the number of outfits to draw, fewer end up in the ranking when some of them are the same
+     * @return the ranking of the distinct outfits found
+     */
+    public OutfitRanking rankOutfits(Map<String, List<ClothingItem>> mapOfOptions, double temp, String weather,
+            int count) {
+        RuleSet rules = ruleRegistry.current();
+        if ("search".equals(mode)) {
+            long start = metrics.start();
+            List<ClothingItem> outfit = optimizer.optimize(rules, mapOfOptions, optionalTypes, temp, weather);
+            metrics.recordOptimize(start);
+            return new OutfitRanking(List.of(outfit), List.of(0));
+        }
+
+        long[] scorerNanos = new long[PipelineMetrics.SCORERS.size()];
+        List<String> keys = new ArrayList<>();
+        List<SlotPenalties> slots = prepareSlots(rules, mapOfOptions, temp, weather, keys, scorerNanos);
+        CandidateSelector selector = new CandidateSelector();
+
+        Map<List<ClothingItem>, Integer> outfits = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            List<SlotPenalties> copies = new ArrayList<>(slots.size());
+            for (SlotPenalties slot : slots) {
+                copies.add(slot.copy());
+            }
+            FilledOutfit outfit = fillSlots(rules, keys, copies, temp, selector, scorerNanos);
+            outfits.putIfAbsent(outfit.items(), outfit.score());
+        }
+        metrics.recordScorers(scorerNanos);
+        return new OutfitRanking(new ArrayList<>(outfits.keySet()), new ArrayList<>(outfits.values()));
+    }
+
+    /**
+     * Prepares the penalties of every slot that has options
+     *
+     * @param keys is filled with the clothing type of each returned slot, in the same order
+     */
+    private List<SlotPenalties> prepareSlots(RuleSet rules, Map<String, List<ClothingItem>> mapOfOptions,
+            double temp, String weather, List<String> keys, long[] scorerNanos) {
+        int weatherId = rules.getVocabulary().weatherId(weather);
+        List<SlotPenalties> slots = new ArrayList<>();
         for (String key : mapOfOptions.keySet()) {
             boolean validMapping = mapOfOptions.get(key) != null && !mapOfOptions.get(key).isEmpty();
             if (validMapping) {
-                if (optionalTypes.contains(key)) {
+                keys.add(key);
+                slots.add(prepareSlot(rules, mapOfOptions.get(key), temp, weatherId, scorerNanos));
+            }
+        }
+        return slots;
+    }
 
-                    boolean found = pickBestOptionalItem(mapOfOptions.get(key), temp, weather, outfit) != null;
+    /**
+     * Fills the slots in order, adding each chosen item's penalties to the slots after it
+     *
+     * @param slots are the prepared slots, whose penalties are updated in place
+     * @return the outfit and its total score
+     */
+    private FilledOutfit fillSlots(RuleSet rules, List<String> keys, List<SlotPenalties> slots, double temp,
+            CandidateSelector selector, long[] scorerNanos) {
+        List<ClothingItem> outfit = new ArrayList<>();
+        int score = 0;
+        for (int s = 0; s < slots.size(); s++) {
+            String key = keys.get(s);
+            SlotPenalties slot = slots.get(s);
+            long start = metrics.start();
+            ClothingItem item = optionalTypes.contains(key)
+                ? pickBestOptionalItem(slot, temp, selector)
+                : pickBestRequiredItem(slot, selector);
+            metrics.recordSlot(key, start, slot.items.size());
 
-                    if (found) { outfit.add(pickBestOptionalItem(mapOfOptions.get(key), temp, weather, outfit)); }
-                }
-                else {
-                    outfit.add(pickBestRequiredItem(mapOfOptions.get(key), temp, weather, outfit));
+            if (item != null) {
+                outfit.add(item);
+                score += selector.getSelectedScore();
+                int subtypeId = rules.getVocabulary().subtypeId(item.getSubtype());
+                int colorId = rules.getVocabulary().colorId(item.getColor());
+                for (int later = s + 1; later < slots.size(); later++) {
+                    addPenalties(rules, slots.get(later), subtypeId, colorId, scorerNanos);
                 }
             }
         }
-        return outfit;
+        return new FilledOutfit(outfit, score);
     }
 
-
     /**
-     * Based on the given list of ClothingItem options, select the best item to add to the outfit based on score.
+     * Based on the given slot's options, select the best item to add to the outfit based on score.
      * 
-     * @param items is the list of ClothingItems to choose from
-     * @param temp is the current temperature in Farenheit
-     * @param weather is the current weather condition
-     * @param currentOutfit is the list of ClothingItems representing the current outfit
+     * @param slot holds the options to choose from and their penalties against the current outfit
+     * @param selector is the reusable selection buffer for this outfit
      * @return the best ClothingItem to be added to the outfit
      */
-    private ClothingItem pickBestRequiredItem(List<ClothingItem> items, double temp, String weather, List<ClothingItem> currentOutfit) {
-        Map<ClothingItem, Integer> scores = new HashMap<>();
-        for (ClothingItem item : items) {
-            int score = tallyScore(item, temp, weather, currentOutfit);
-            scores.put(item, score);
-        }
-
-        // Take the top 3 scoring items and order from best to worst
-        List<Map.Entry<ClothingItem, Integer>> top3Entries = getTopOptions(scores);
-        
-        return weightedRandomSelector(top3Entries);
+    private ClothingItem pickBestRequiredItem(SlotPenalties slot, CandidateSelector selector) {
+        return slot.items.get(selectCandidate(slot, selector));
     }
 
     /**
-     * Based on the given list of optional ClothingItem options, select the best item and add it to the outfit only if 
-     * its score is desireable.
+     * Based on the given slot's optional options, select the best item and add it to the outfit only if its
+     * score is desireable.
      * 
-     * @param items is the list of ClothingItem options
+     * @param slot holds the options to choose from and their penalties against the current outfit
      * @param temp is the current temperature in Farenheit
-     * @param weather is the current weather condition
-     * @param currentOutfit is the list of ClothingItems representing the current outfit
-     * @return the best ClothingItem to be added to the outfit only if its score < 2, otherwise return null
+     * @param selector is the reusable selection buffer for this outfit
+     * @return the best ClothingItem to be added to the outfit only if its score < 4, otherwise return null
      */
-    private ClothingItem pickBestOptionalItem(List<ClothingItem> items, double temp, String weather, List<ClothingItem> currentOutfit) {
-         Map<ClothingItem, Integer> scores = new HashMap<>();
-        for (ClothingItem item : items) {
-            int score = tallyScore(item, temp, weather, currentOutfit);
-            scores.put(item, score);
-        }
+    private ClothingItem pickBestOptionalItem(SlotPenalties slot, double temp, CandidateSelector selector) {
+        ClothingItem prospect = slot.items.get(selectCandidate(slot, selector));
 
-        // Take the top 3 scoring items and order from best to worst
-        List<Map.Entry<ClothingItem, Integer>> top3Entries = getTopOptions(scores);
-        
         // Only choose the ClothingItem if its score is desireable, otherwise do not include the subtype in the final outfit
-        ClothingItem prospect = weightedRandomSelector(top3Entries);
         if (temp <= 40 && !prospect.getSubtype().equals("cap")) {
             return prospect;
         }
-        else if (scores.get(prospect) < 4) {
+        else if (selector.getSelectedScore() < 4) {
             return prospect;
         }
         else return null;
     }
 
-    private List<Map.Entry<ClothingItem, Integer>> getTopOptions(Map<ClothingItem, Integer> scores) {
-        // Sort entries by score ascending
-        List<Map.Entry<ClothingItem, Integer>> sorted = scores.entrySet().stream()
-            .sorted(Map.Entry.comparingByValue())
-            .collect(Collectors.toList());
+    /**
+     * Draws one of the options with the best penalties with a weighted random pick. Slots with at least
+     * recommendation.scoring.parallel-threshold options are offered to the selector from the scoring pool, each
+     * range into its own CandidateSelector, and the selectors are merged before the draw.
+     * 
+     * @return the index of the chosen option in the slot
+     */
+    private int selectCandidate(SlotPenalties slot, CandidateSelector selector) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        selector.reset();
+        if (slot.items.size() >= parallelThreshold) {
+            selector.merge(scoringPool.invoke(new SelectRange(slot, 0, slot.items.size())), random);
+        } else {
+            offerRange(slot, selector, 0, slot.items.size());
+        }
+        return selector.select(random);
+    }
 
-        int bestScore = sorted.get(0).getValue();
+    private static void offerRange(SlotPenalties slot, CandidateSelector selector, int start, int end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = start; i < end; i++) {
+            selector.offer(i, slot.penalties[i], random);
+        }
+    }
 
-        // Collect all entries with best score
-        List<Map.Entry<ClothingItem, Integer>> topScoreEntries = sorted.stream()
-            .filter(e -> e.getValue() == bestScore)
-            .collect(Collectors.toList());
+    /**
+     * Resolves the rule ids of a slot's options and starts each penalty at the option's temperature plus weather
+     * score, which do not depend on the rest of the outfit
+     *
+     * @param scorerNanos is where the time of each scorer is added (in the order of PipelineMetrics.SCORERS)
+     */
+    private SlotPenalties prepareSlot(RuleSet rules, List<ClothingItem> items, double temp, int weatherId,
+            long[] scorerNanos) {
+        SlotPenalties slot = new SlotPenalties(items);
+        RuleVocabulary vocabulary = rules.getVocabulary();
+        ScoreByTemperature scoreByTemperature = rules.getScoreByTemperature();
+        ScoreByWeather scoreByWeather = rules.getScoreByWeather();
+        int[] subtypeIds = slot.subtypeIds;
+        int[] colorIds = slot.colorIds;
+        int[] penalties = slot.penalties;
 
-        // If fewer than 5, add second best score entries
-        if (topScoreEntries.size() < 5) {
-            // Find second best score (first score > bestScore)
-            OptionalInt secondBestOpt = sorted.stream()
-                .mapToInt(Map.Entry::getValue)
-                .filter(score -> score > bestScore)
-                .findFirst();
+        forEachRange(items.size(), (start, end) -> {
+            for (int i = start; i < end; i++) {
+                ClothingItem item = items.get(i);
+                subtypeIds[i] = vocabulary.subtypeId(item.getSubtype());
+                colorIds[i] = vocabulary.colorId(item.getColor());
+            }
+        });
 
-            if (secondBestOpt.isPresent()) {
-                int secondBestScore = secondBestOpt.getAsInt();
+        boolean timeScorers = metrics.isScorersEnabled();
+        long t0 = timeScorers ? System.nanoTime() : 0;
+        forEachRange(items.size(), (start, end) -> {
+            for (int i = start; i < end; i++) {
+                penalties[i] = scoreByTemperature.score(subtypeIds[i], temp);
+            }
+        });
+        long t1 = timeScorers ? System.nanoTime() : 0;
+        forEachRange(items.size(), (start, end) -> {
+            for (int i = start; i < end; i++) {
+                penalties[i] += scoreByWeather.score(subtypeIds[i], weatherId);
+            }
+        });
+        if (timeScorers) {
+            scorerNanos[0] += t1 - t0;
+            scorerNanos[3] += System.nanoTime() - t1;
+        }
+        return slot;
+    }
 
-                List<Map.Entry<ClothingItem, Integer>> secondBestEntries = sorted.stream()
-                    .filter(e -> e.getValue() == secondBestScore)
-                    .limit(5 - topScoreEntries.size())
-                    .collect(Collectors.toList());
+    /**
+     * Adds the color and compatibility penalty of an item just added to the outfit to every option of a slot
+     * that is still to be filled
+     */
+    private void addPenalties(RuleSet rules, SlotPenalties slot, int addedSubtypeId, int addedColorId,
+            long[] scorerNanos) {
+        ScoreByColor scoreByColor = rules.getScoreByColor();
+        ScoreByCompatibility scoreByCompatibility = rules.getScoreByCompatibility();
+        int[] subtypeIds = slot.subtypeIds;
+        int[] colorIds = slot.colorIds;
+        int[] penalties = slot.penalties;
 
-                topScoreEntries.addAll(secondBestEntries);
+        boolean timeScorers = metrics.isScorersEnabled();
+        long t0 = timeScorers ? System.nanoTime() : 0;
+        forEachRange(penalties.length, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                penalties[i] += scoreByColor.pairScore(colorIds[i], addedColorId);
+            }
+        });
+        long t1 = timeScorers ? System.nanoTime() : 0;
+        forEachRange(penalties.length, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                penalties[i] += scoreByCompatibility.pairScore(subtypeIds[i], addedSubtypeId);
             }
+        });
+        if (timeScorers) {
+            scorerNanos[1] += t1 - t0;
+            scorerNanos[2] += System.nanoTime() - t1;
         }
+    }
 
-        // Shuffle combined list
-        Collections.shuffle(topScoreEntries);
+    /**
+     * Runs action over the indexes from 0 to size, split into ranges on the scoring pool when size reaches
+     * recommendation.scoring.parallel-threshold, otherwise as one range on the calling thread
+     */
+    private void forEachRange(int size, RangeAction action) {
+        if (size >= parallelThreshold) {
+            scoringPool.invoke(new ForEachRange(action, 0, size));
+        } else {
+            action.run(0, size);
+        }
+    }
 
-        // Return top 3 from combined shuffled list (or fewer if less available)
-        return topScoreEntries.stream().limit(3).collect(Collectors.toList());
+    private interface RangeAction {
+        void run(int start, int end);
     }
 
     /**
-     * Helper method to calculate the score of a given ClothingItem based on season, color, and its compatibility with 
-     * the current outfit.
-     * 
-     * @param item is the given ClothingItem
-     * @param temp is the current temperature in Farenheit
-     * @param weather is the current weather condition
-     * @param currentOutfit is the list of ClothingItems representing the current outfit
-     * @return an integer that represents the total score of the ClothingItem
+     * Halves a range until it has at most parallelLeafSize indexes and runs the action on each part
      */
-    private int tallyScore(ClothingItem item, double temp, String weather, List<ClothingItem> currentOutfit) {
-        int temperatureScore = scoreByTemperature.score(item, temp);
-        int colorScore = scoreByColor.score(item, currentOutfit);
-        int compatibilityScore = scoreByCompatibility.score(item, currentOutfit);
-        int weatherScore = scoreByWeather.score(item, weather);
-        
-        return temperatureScore + colorScore + compatibilityScore + weatherScore;
+    private class ForEachRange extends RecursiveAction {
+        private final RangeAction action;
+        private final int start;
+        private final int end;
+
+        private ForEachRange(RangeAction action, int start, int end) {
+            this.action = action;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= parallelLeafSize) {
+                action.run(start, end);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new ForEachRange(action, start, middle), new ForEachRange(action, middle, end));
+        }
     }
 
     /**
-     * Take up to the top 3 highest scoring ClothingItems and randomly select one with for the outfit using
-     * a weighted selection algorithm.
-     *
-     * @param top3Entries is a sorted list of up to 3 of the highest scoring items
-     * @return the chosen ClothingItem
-     */
-    private ClothingItem weightedRandomSelector(List<Map.Entry<ClothingItem, Integer>> top3Entries) {
-        // count the total combined score of the prospective ClothingItems
-        // start totalScore at 1 for the edge case where totalScore - entry.getValue() = 0
-        int totalScore = 1;
-        for (Map.Entry<ClothingItem, Integer> entry : top3Entries) {
-            totalScore += entry.getValue() ;
-        }
-        // count the total weights to be the size of the array, with each item's weight being totalScore subtract
-        // their score
-        int totalWeights = 0;
-        for (Map.Entry<ClothingItem, Integer> entry : top3Entries) {
-            totalWeights += (totalScore - entry.getValue());
-        }
-
-        // add the item to the array, repeat for the size of its weight
-        ClothingItem[] weightedOptions = new ClothingItem[totalWeights];
-        int index = 0;
-        for (Map.Entry<ClothingItem, Integer> entry : top3Entries) {
-            for (int i = 0; i < (totalScore - entry.getValue()); i++) {
-                weightedOptions[index] = entry.getKey();
-                index++;
+     * Offers a range of a slot's options to selectors on the scoring pool, halving it until a range has at most
+     * parallelLeafSize options, and merges the selectors
+     */
+    private class SelectRange extends RecursiveTask<CandidateSelector> {
+        private final SlotPenalties slot;
+        private final int start;
+        private final int end;
+
+        private SelectRange(SlotPenalties slot, int start, int end) {
+            this.slot = slot;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected CandidateSelector compute() {
+            if (end - start <= parallelLeafSize) {
+                CandidateSelector selector = new CandidateSelector();
+                offerRange(slot, selector, start, end);
+                return selector;
             }
+
+            int middle = (start + end) >>> 1;
+            SelectRange left = new SelectRange(slot, start, middle);
+            left.fork();
+            CandidateSelector right = new SelectRange(slot, middle, end).compute();
+            CandidateSelector merged = left.join();
+            merged.merge(right, ThreadLocalRandom.current());
+            return merged;
         }
+    }
 
-        // select a random index from the array and return the ClothingItem stored at that index
-        Random random = new Random();
-        return weightedOptions[random.nextInt(totalWeights)];
+    /**
+     * The options of one slot with their rule vocabulary ids, so they can be scored with array reads instead of
+     * string lookups, and each option's running penalty: its temperature and weather score plus its color and
+     * compatibility score against every item added to the outfit so far.
+     */
+    private static class SlotPenalties {
+        private final List<ClothingItem> items;
+        private final int[] subtypeIds;
+        private final int[] colorIds;
+        private final int[] penalties;
+
+        private SlotPenalties(List<ClothingItem> items) {
+            this.items = items;
+            this.subtypeIds = new int[items.size()];
+            this.colorIds = new int[items.size()];
+            this.penalties = new int[items.size()];
+        }
+
+        private SlotPenalties(SlotPenalties other) {
+            this.items = other.items;
+            this.subtypeIds = other.subtypeIds;
+            this.colorIds = other.colorIds;
+            this.penalties = other.penalties.clone();
+        }
+
+        /**
+         * @return a slot with the same options and ids and its own copy of the penalties
+         */
+        private SlotPenalties copy() {
+            return new SlotPenalties(this);
+        }
+    }
+
+    /**
+     * An outfit filled slot by slot, with the sum of the penalties its items had when they were chosen
+     */
+    private record FilledOutfit(List<ClothingItem> items, int score) {
     }
 }
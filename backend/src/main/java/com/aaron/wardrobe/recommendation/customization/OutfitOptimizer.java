@@ -0,0 +1,358 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Searches combinations of the outfit slots for the outfit with the lowest total score, instead of filling the
+ * slots one at a time in map order.
+ *
+ * Items of the same type that share a subtype and color always score the same, so each slot's options are first
+ * collapsed into classes of (subtype, color) with one randomly chosen representative item. The search then runs
+ * a beam search over the slots, keeping the beamWidth cheapest partial outfits at each level, and prunes any
+ * partial outfit whose lower bound is worse than the best complete outfit known. The lower bound adds the
+ * cheapest temperature/weather score of every remaining slot to the cheapest pairwise color and compatibility
+ * penalty between every pair of slots that still has an open side. A greedy outfit is built first as the
+ * initial incumbent, and it is returned as is when the time budget runs out.
+ *
+ * Each pair of items costs their compatibility score plus 1 if either color clashes with the other.
+ * Optional slots stay empty only when none of their options would pass the same threshold the greedy
+ * customizer uses.
+ */
+class OutfitOptimizer {
+
+    private final int beamWidth;
+    private final long timeBudgetNanos;
+
+    OutfitOptimizer(int beamWidth, Duration timeBudget) {
+        this.beamWidth = beamWidth;
+        this.timeBudgetNanos = timeBudget.toNanos();
+    }
+
+    /**
+     * @param rules is the compiled rule set to score with
+     * @param mapOfOptions maps each clothing type to its filtered options
+     * @param optionalTypes are the clothing types that may be left out of the outfit
+     * @param temp is the current temperature in Farenheit
+     * @param weather is the current weather condition
+     * @return the lowest scoring outfit found within the time budget
+     */
+    List<ClothingItem> optimize(RuleSet rules, Map<String, List<ClothingItem>> mapOfOptions, List<String> optionalTypes,
+            double temp, String weather) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        Search search = new Search(rules, temp, rules.getVocabulary().weatherId(weather));
+
+        // required slots first, so optional slots are judged against the complete base outfit
+        List<Slot> slots = new ArrayList<>();
+        for (Map.Entry<String, List<ClothingItem>> entry : mapOfOptions.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty() && !optionalTypes.contains(entry.getKey())) {
+                slots.add(search.classify(entry.getValue(), false));
+            }
+        }
+        for (Map.Entry<String, List<ClothingItem>> entry : mapOfOptions.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty() && optionalTypes.contains(entry.getKey())) {
+                slots.add(search.classify(entry.getValue(), true));
+            }
+        }
+        if (slots.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int[] incumbent = search.greedy(slots);
+        int incumbentCost = search.cost(slots, incumbent);
+        int[] best = search.beam(slots, beamWidth, incumbentCost, deadline);
+
+        return search.toOutfit(slots, best != null ? best : incumbent);
+    }
+
+    /**
+     * The distinct (subtype, color) classes of one slot's options
+     */
+    private static class Slot {
+        private final boolean optional;
+        private int size;
+        private int[] subtypeIds;
+        private int[] colorIds;
+        private int[] unaryScores;
+        private int[] counts;
+        private ClothingItem[] representatives;
+
+        private Slot(boolean optional, int capacity) {
+            this.optional = optional;
+            this.subtypeIds = new int[capacity];
+            this.colorIds = new int[capacity];
+            this.unaryScores = new int[capacity];
+            this.counts = new int[capacity];
+            this.representatives = new ClothingItem[capacity];
+        }
+    }
+
+    private static class Search {
+        private static final int SKIPPED = -1;
+
+        private final RuleSet rules;
+        private final RuleVocabulary vocabulary;
+        private final double temp;
+        private final int weatherId;
+        private final int capId;
+        private final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        private Search(RuleSet rules, double temp, int weatherId) {
+            this.rules = rules;
+            this.vocabulary = rules.getVocabulary();
+            this.temp = temp;
+            this.weatherId = weatherId;
+            this.capId = vocabulary.subtypeId("cap");
+        }
+
+        private Slot classify(List<ClothingItem> items, boolean optional) {
+            Slot slot = new Slot(optional, Math.min(items.size(), 64));
+
+            // unknown subtypes and colors (id -1) get their own row and column
+            int colorStride = vocabulary.colorCount() + 1;
+            int[] classes = new int[(vocabulary.subtypeCount() + 1) * colorStride];
+            Arrays.fill(classes, -1);
+
+            for (ClothingItem item : items) {
+                int subtypeId = vocabulary.subtypeId(item.getSubtype());
+                int colorId = vocabulary.colorId(item.getColor());
+                int key = (subtypeId + 1) * colorStride + colorId + 1;
+                int index = classes[key];
+                if (index < 0) {
+                    index = slot.size;
+                    classes[key] = index;
+                    grow(slot);
+                    slot.subtypeIds[index] = subtypeId;
+                    slot.colorIds[index] = colorId;
+                    slot.unaryScores[index] = rules.getScoreByTemperature().score(subtypeId, temp)
+                        + rules.getScoreByWeather().score(subtypeId, weatherId);
+                    slot.size++;
+                }
+                // reservoir of one keeps a uniformly random representative per class
+                slot.counts[index]++;
+                if (random.nextInt(slot.counts[index]) == 0) {
+                    slot.representatives[index] = item;
+                }
+            }
+            shuffle(slot);
+            return slot;
+        }
+
+        /**
+         * Fills each slot with the class that adds the least to the outfit so far
+         */
+        private int[] greedy(List<Slot> slots) {
+            int[] choice = new int[slots.size()];
+            for (int level = 0; level < slots.size(); level++) {
+                Slot slot = slots.get(level);
+                int bestClass = SKIPPED;
+                int bestCost = Integer.MAX_VALUE;
+                for (int c = 0; c < slot.size; c++) {
+                    int marginal = marginal(slots, choice, level, c);
+                    if (marginal < bestCost && (!slot.optional || admissible(slot, c, marginal))) {
+                        bestCost = marginal;
+                        bestClass = c;
+                    }
+                }
+                choice[level] = bestClass;
+            }
+            return choice;
+        }
+
+        private int[] beam(List<Slot> slots, int beamWidth, int incumbentCost, long deadline) {
+            int levels = slots.size();
+            int[] suffixBounds = suffixBounds(slots);
+
+            int[][] states = new int[][] { new int[levels] };
+            int[] costs = new int[] { 0 };
+
+            for (int level = 0; level < levels; level++) {
+                if (System.nanoTime() - deadline > 0) {
+                    return null;
+                }
+                Slot slot = slots.get(level);
+
+                int maxChildren = states.length * (slot.size + 1);
+                int[] childParents = new int[maxChildren];
+                int[] childClasses = new int[maxChildren];
+                int[] childCosts = new int[maxChildren];
+                long[] keys = new long[maxChildren];
+                int children = 0;
+
+                for (int s = 0; s < states.length; s++) {
+                    boolean anyAdmissible = false;
+                    for (int c = 0; c < slot.size; c++) {
+                        int marginal = marginal(slots, states[s], level, c);
+                        if (slot.optional && !admissible(slot, c, marginal)) {
+                            continue;
+                        }
+                        anyAdmissible = true;
+                        int cost = costs[s] + marginal;
+                        if (cost + suffixBounds[level + 1] > incumbentCost) {
+                            continue;
+                        }
+                        childParents[children] = s;
+                        childClasses[children] = c;
+                        childCosts[children] = cost;
+                        keys[children] = key(cost, children);
+                        children++;
+                    }
+                    if (slot.optional && !anyAdmissible && costs[s] + suffixBounds[level + 1] <= incumbentCost) {
+                        childParents[children] = s;
+                        childClasses[children] = SKIPPED;
+                        childCosts[children] = costs[s];
+                        keys[children] = key(costs[s], children);
+                        children++;
+                    }
+                }
+                if (children == 0) {
+                    // everything was pruned, so nothing beats the incumbent
+                    return null;
+                }
+
+                Arrays.sort(keys, 0, children);
+                int kept = Math.min(beamWidth, children);
+                int[][] nextStates = new int[kept][];
+                int[] nextCosts = new int[kept];
+                for (int k = 0; k < kept; k++) {
+                    int child = (int) keys[k];
+                    nextStates[k] = states[childParents[child]].clone();
+                    nextStates[k][level] = childClasses[child];
+                    nextCosts[k] = childCosts[child];
+                }
+                states = nextStates;
+                costs = nextCosts;
+            }
+            // keys put the cheapest complete outfit first, with ties in random order
+            return states[0];
+        }
+
+        /**
+         * @return for each level, a lower bound on the cost still to be added by the slots from that level on
+         */
+        private int[] suffixBounds(List<Slot> slots) {
+            int levels = slots.size();
+            int[] minUnary = new int[levels];
+            int[][] minPair = new int[levels][levels];
+            for (int r = 0; r < levels; r++) {
+                Slot slot = slots.get(r);
+                if (slot.optional) {
+                    continue;
+                }
+                minUnary[r] = Integer.MAX_VALUE;
+                for (int c = 0; c < slot.size; c++) {
+                    minUnary[r] = Math.min(minUnary[r], slot.unaryScores[c]);
+                }
+                for (int s = r + 1; s < levels; s++) {
+                    Slot other = slots.get(s);
+                    if (other.optional) {
+                        continue;
+                    }
+                    int min = Integer.MAX_VALUE;
+                    for (int c = 0; c < slot.size; c++) {
+                        for (int o = 0; o < other.size; o++) {
+                            min = Math.min(min, pair(slot, c, other, o));
+                        }
+                    }
+                    minPair[r][s] = min;
+                }
+            }
+
+            // every pair of slots whose later slot is still open contributes at least its cheapest pair
+            int[] bounds = new int[levels + 1];
+            for (int level = levels - 1; level >= 0; level--) {
+                int bound = bounds[level + 1] + minUnary[level];
+                for (int s = 0; s < level; s++) {
+                    bound += minPair[s][level];
+                }
+                bounds[level] = bound;
+            }
+            return bounds;
+        }
+
+        private int cost(List<Slot> slots, int[] choice) {
+            int cost = 0;
+            for (int level = 0; level < slots.size(); level++) {
+                if (choice[level] != SKIPPED) {
+                    cost += marginal(slots, choice, level, choice[level]);
+                }
+            }
+            return cost;
+        }
+
+        /**
+         * @return the cost class c of the slot at level adds to the outfit chosen for the earlier levels
+         */
+        private int marginal(List<Slot> slots, int[] choice, int level, int c) {
+            Slot slot = slots.get(level);
+            int cost = slot.unaryScores[c];
+            for (int earlier = 0; earlier < level; earlier++) {
+                if (choice[earlier] != SKIPPED) {
+                    cost += pair(slot, c, slots.get(earlier), choice[earlier]);
+                }
+            }
+            return cost;
+        }
+
+        private int pair(Slot slot, int c, Slot other, int o) {
+            int clash = rules.getScoreByColor().pairScore(slot.colorIds[c], other.colorIds[o])
+                | rules.getScoreByColor().pairScore(other.colorIds[o], slot.colorIds[c]);
+            return rules.getScoreByCompatibility().pairScore(slot.subtypeIds[c], other.subtypeIds[o]) + clash;
+        }
+
+        private boolean admissible(Slot slot, int c, int marginal) {
+            return (temp <= 40 && slot.subtypeIds[c] != capId) || marginal < 4;
+        }
+
+        private List<ClothingItem> toOutfit(List<Slot> slots, int[] choice) {
+            List<ClothingItem> outfit = new ArrayList<>();
+            for (int level = 0; level < slots.size(); level++) {
+                if (choice[level] != SKIPPED) {
+                    outfit.add(slots.get(level).representatives[choice[level]]);
+                }
+            }
+            return outfit;
+        }
+
+        /**
+         * Packs a cost, a random tie-breaker and the child index so a primitive sort orders children by cost
+         */
+        private long key(int cost, int child) {
+            return ((long) cost << 48) | ((long) random.nextInt(1 << 16) << 32) | child;
+        }
+
+        private void grow(Slot slot) {
+            if (slot.size < slot.subtypeIds.length) {
+                return;
+            }
+            int capacity = slot.subtypeIds.length * 2;
+            slot.subtypeIds = Arrays.copyOf(slot.subtypeIds, capacity);
+            slot.colorIds = Arrays.copyOf(slot.colorIds, capacity);
+            slot.unaryScores = Arrays.copyOf(slot.unaryScores, capacity);
+            slot.counts = Arrays.copyOf(slot.counts, capacity);
+            slot.representatives = Arrays.copyOf(slot.representatives, capacity);
+        }
+
+        private void shuffle(Slot slot) {
+            for (int i = slot.size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                swap(slot.subtypeIds, i, j);
+                swap(slot.colorIds, i, j);
+                swap(slot.unaryScores, i, j);
+                swap(slot.counts, i, j);
+                ClothingItem item = slot.representatives[i];
+                slot.representatives[i] = slot.representatives[j];
+                slot.representatives[j] = item;
+            }
+        }
+
+        private static void swap(int[] values, int i, int j) {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Distinct outfits found for the same options and conditions, ordered from the lowest (best) total score. An
+ * outfit is drawn with pick() the way CandidateSelector draws an item for a slot, with a weight of (1 + the sum
+ * of all scores) minus its own score, so better outfits come up more often without the result being fixed.
+ *
+ * A ranking is immutable and can be shared between threads.
+ */
+public class OutfitRanking {
+
+    private final List<List<ClothingItem>> outfits;
+    private final int[] scores;
+
+    /**
+     * @param outfits are the distinct outfits, in any order
+     * @param scores are the total scores of the outfits, in the same order
+     */
+    OutfitRanking(List<List<ClothingItem>> outfits, List<Integer> scores) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < outfits.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(scores::get));
+
+        this.outfits = new ArrayList<>(outfits.size());
+        this.scores = new int[outfits.size()];
+        for (int i = 0; i < order.size(); i++) {
+            this.outfits.add(List.copyOf(outfits.get(order.get(i))));
+            this.scores[i] = scores.get(order.get(i));
+        }
+    }
+
+    /**
+     * @return one of the outfits, drawn with lower scores being favoured
+     */
+    public List<ClothingItem> pick(Random random) {
+        // start total at 1 for the edge case where total - score = 0
+        long total = 1;
+        for (int score : scores) {
+            total += score;
+        }
+
+        long weightSum = 0;
+        for (int score : scores) {
+            weightSum += total - score;
+        }
+        long target = random.nextLong(weightSum);
+        for (int i = 0; i < scores.length; i++) {
+            target -= total - scores[i];
+            if (target < 0) {
+                return new ArrayList<>(outfits.get(i));
+            }
+        }
+        throw new IllegalStateException("Weighted selection ran past the total weight");
+    }
+
+    /**
+     * @return the number of distinct outfits in the ranking
+     */
+    public int size() {
+        return outfits.size();
+    }
+}
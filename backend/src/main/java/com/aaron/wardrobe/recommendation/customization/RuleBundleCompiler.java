@@ -0,0 +1,43 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Build step (bound to process-classes in the pom) that validates the rule CSVs copied to the output directory
+ * and compiles them into the rules.bin bundle next to them. The build fails if the CSVs do not load or validate,
+ * so broken rules are caught before they ship.
+ *
+ * Usage: RuleBundleCompiler <directory holding the CSVs>
+ */
+public class RuleBundleCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: RuleBundleCompiler <directory holding the rule CSVs>");
+        }
+        Path directory = Path.of(args[0]);
+
+        RuleSet rules;
+        try {
+            rules = RuleSet.loadFromDirectory(directory, 1);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Rule CSVs in " + directory + " do not parse", e);
+        }
+        List<String> errors = RuleRegistry.validate(rules, null);
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid rule CSVs in " + directory + ": " + String.join("; ", errors));
+        }
+
+        Path bundle = directory.resolve(RuleSet.BUNDLE);
+        try (OutputStream out = Files.newOutputStream(bundle)) {
+            rules.writeBundle(out, RuleSet.checksum(directory));
+        }
+        RuleVocabulary vocabulary = rules.getVocabulary();
+        System.out.printf("Compiled %d subtypes, %d colors and %d weather conditions into %s (%d bytes)%n",
+            vocabulary.subtypeCount(), vocabulary.colorCount(), vocabulary.weatherCount(), bundle, Files.size(bundle));
+    }
+}
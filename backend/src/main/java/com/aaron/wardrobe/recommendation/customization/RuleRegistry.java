@@ -0,0 +1,224 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the RuleSet outfits are currently scored with. The rules are loaded from rules.directory, or from the
+ * classpath when it is empty. On the classpath the precompiled rules.bin bundle is used unless
+ * rules.bundle.enabled is off; a missing or stale bundle falls back to the CSVs. Rules can be reloaded at runtime
+ * through POST /admin/rules/reload or, with rules.watch enabled, whenever the files in rules.directory change.
+ *
+ * A reload builds and validates a complete new RuleSet before publishing it with a single reference swap, so
+ * scoring never takes a lock, and a request that read the old RuleSet finishes with it. Rules that fail to
+ * load or validate are rejected and the current version stays active.
+ */
+@Component
+public class RuleRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleRegistry.class);
+
+    private final Path directory;
+    private final boolean watch;
+    private final boolean bundleEnabled;
+    private final AtomicReference<RuleSet> current = new AtomicReference<>();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private volatile long lastLoadNanos;
+    private String fingerprint;
+
+    public RuleRegistry(
+        @Value("${rules.directory:}") String directory,
+        @Value("${rules.watch:false}") boolean watch,
+        @Value("${rules.bundle.enabled:true}") boolean bundleEnabled
+    ) {
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.watch = watch && this.directory != null;
+        this.bundleEnabled = bundleEnabled;
+        try {
+            this.fingerprint = fingerprint();
+            current.set(load(1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load the rule tables", e);
+        }
+        List<String> errors = validate(current.get(), null);
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid rule tables: " + String.join("; ", errors));
+        }
+        log.info("Loaded rules version 1 from {} in {}ms", current.get().getSource(), String.format("%.2f", lastLoadNanos / 1e6));
+    }
+
+    /**
+     * @return the rules to score with. Callers should read this once per outfit and use that RuleSet throughout,
+     *         since vocabulary ids are only meaningful within one RuleSet.
+     */
+    public RuleSet current() {
+        return current.get();
+    }
+
+    /**
+     * Loads the rule tables again and publishes them as the next version if they are valid
+     */
+    public synchronized RuleReloadResult reload() {
+        long start = System.nanoTime();
+        RuleSet active = current.get();
+        RuleReloadResult result = new RuleReloadResult();
+
+        List<String> errors;
+        RuleSet candidate = null;
+        try {
+            fingerprint = fingerprint();
+            candidate = load(active.getVersion() + 1);
+            errors = validate(candidate, active);
+        } catch (IOException | RuntimeException e) {
+            // NumberFormatException and friends from a malformed row end up here too
+            errors = List.of("failed to load: " + e);
+        }
+
+        if (errors.isEmpty()) {
+            current.set(candidate);
+            reloads.increment();
+            log.info("Published rules version {} from {}, loaded in {}ms", candidate.getVersion(),
+                candidate.getSource(), String.format("%.2f", lastLoadNanos / 1e6));
+        } else {
+            rejections.increment();
+            log.warn("Rejected rules from {}, keeping version {}: {}", directory == null ? "classpath" : directory,
+                active.getVersion(), errors);
+        }
+
+        result.setPublished(errors.isEmpty());
+        result.setVersion(current.get().getVersion());
+        result.setSource(current.get().getSource());
+        result.setErrors(errors);
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Reloads the rules when rules.watch is on and a file in rules.directory has changed since the last load
+     */
+    @Scheduled(fixedDelayString = "${rules.watch-interval:10s}")
+    public void reloadIfChanged() {
+        if (!watch) {
+            return;
+        }
+        try {
+            if (!fingerprint().equals(fingerprint)) {
+                reload();
+            }
+        } catch (IOException e) {
+            // e.g. a file is being replaced, look again on the next round
+            log.debug("Could not check the rule files for changes", e);
+        }
+    }
+
+    public long getReloads() {
+        return reloads.sum();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return how long the most recent load (successful or not) took to read and compile the rules
+     */
+    public long getLastLoadNanos() {
+        return lastLoadNanos;
+    }
+
+    private RuleSet load(long version) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (directory != null) {
+                return RuleSet.loadFromDirectory(directory, version);
+            }
+            if (bundleEnabled) {
+                try {
+                    RuleSet bundled = RuleSet.loadBundleFromClasspath(version);
+                    if (bundled != null) {
+                        return bundled;
+                    }
+                    log.warn("No {} on the classpath, compiling the rule CSVs instead", RuleSet.BUNDLE);
+                } catch (IOException e) {
+                    log.warn("Could not use {}, compiling the rule CSVs instead: {}", RuleSet.BUNDLE, e.getMessage());
+                }
+            }
+            return RuleSet.loadFromClasspath(version);
+        } finally {
+            lastLoadNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * @return the modification times and sizes of the rule files, which change whenever any of them is rewritten
+     */
+    private String fingerprint() throws IOException {
+        if (directory == null) {
+            return "";
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        for (String file : RuleSet.FILES) {
+            Path path = directory.resolve(file);
+            fingerprint.append(Files.getLastModifiedTime(path).toMillis()).append(':').append(Files.size(path)).append(',');
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Checks that every table has entries, that every subtype has a temperature range (without one it scores 2,
+     * merely acceptable, at any temperature) and that no subtype or color the active rules know has disappeared,
+     * since items with those names are already stored in wardrobes and would silently lose their scores.
+     *
+     * @param active is the RuleSet currently in use, or null on startup
+     * @return the problems found, empty if the candidate is valid
+     */
+    static List<String> validate(RuleSet candidate, RuleSet active) {
+        List<String> errors = new ArrayList<>();
+        RuleVocabulary vocabulary = candidate.getVocabulary();
+        if (vocabulary.subtypeCount() == 0) {
+            errors.add("no subtypes");
+        }
+        if (vocabulary.colorCount() == 0) {
+            errors.add("no colors");
+        }
+        if (vocabulary.weatherCount() == 0) {
+            errors.add("no weather conditions");
+        }
+        for (int id = 0; id < vocabulary.subtypeCount(); id++) {
+            if (!candidate.getScoreByTemperature().hasRange(id)) {
+                errors.add("subtype " + vocabulary.subtypeName(id) + " has no temperature range");
+            }
+        }
+        if (active == null) {
+            return errors;
+        }
+
+        RuleVocabulary activeVocabulary = active.getVocabulary();
+        for (int id = 0; id < activeVocabulary.subtypeCount(); id++) {
+            String subtype = activeVocabulary.subtypeName(id);
+            if (vocabulary.subtypeId(subtype) == RuleVocabulary.UNKNOWN) {
+                errors.add("subtype " + subtype + " was removed");
+            }
+        }
+        for (int id = 0; id < activeVocabulary.colorCount(); id++) {
+            String color = activeVocabulary.colorName(id);
+            if (vocabulary.colorId(color) == RuleVocabulary.UNKNOWN) {
+                errors.add("color " + color + " was removed");
+            }
+        }
+        return errors;
+    }
+}
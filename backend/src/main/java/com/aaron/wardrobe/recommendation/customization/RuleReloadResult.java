@@ -0,0 +1,17 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The outcome of a rule reload
+ */
+@Data
+public class RuleReloadResult {
+    private boolean published;
+    private long version; // the active version after the reload
+    private String source;
+    private List<String> errors;
+    private long elapsedMillis;
+}
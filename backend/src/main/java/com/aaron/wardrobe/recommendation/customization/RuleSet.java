@@ -0,0 +1,228 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import com.aaron.wardrobe.recommendation.customization.colorScore.ScoreByColor;
+import com.aaron.wardrobe.recommendation.customization.compatabilityScore.ScoreByCompatibility;
+import com.aaron.wardrobe.recommendation.customization.weatherScore.ScoreByTemperature;
+import com.aaron.wardrobe.recommendation.customization.weatherScore.ScoreByWeather;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The compiled scoring rules: one shared vocabulary and the four scorers whose tables are indexed by its ids.
+ * Loading happens in two phases. Every CSV is parsed first so that all names are interned, then each scorer
+ * compiles its table into primitive arrays sized to the final vocabulary. A RuleSet is never modified after
+ * it is loaded, so a reload builds a new one (see RuleRegistry) and anyone holding the old one keeps scoring
+ * consistently with it.
+ *
+ * The build also compiles the CSVs into a binary bundle, rules.bin (see RuleBundleCompiler), which holds the
+ * vocabulary and the finished tables and is read in one go instead of parsed. Its layout is
+ *
+ *   "WRB1" | int64 CRC32 of the CSVs it was compiled from | vocabulary | compatibility | colors | weather | temperature
+ *
+ * with each section written by the writeTo/writeCompiled method of its class, big-endian.
+ */
+public class RuleSet {
+
+    public static final List<String> FILES = List.of("compatibility.csv", "colors.csv", "weather.csv", "temperature.csv");
+    public static final String BUNDLE = "rules.bin";
+
+    private static final byte[] BUNDLE_MAGIC = { 'W', 'R', 'B', '1' };
+
+    private final long version;
+    private final String source;
+    private final RuleVocabulary vocabulary;
+    private final ScoreByTemperature scoreByTemperature;
+    private final ScoreByCompatibility scoreByCompatibility;
+    private final ScoreByColor scoreByColor;
+    private final ScoreByWeather scoreByWeather;
+
+    private RuleSet(long version, String source, RuleVocabulary vocabulary, ScoreByTemperature scoreByTemperature,
+            ScoreByCompatibility scoreByCompatibility, ScoreByColor scoreByColor, ScoreByWeather scoreByWeather) {
+        this.version = version;
+        this.source = source;
+        this.vocabulary = vocabulary;
+        this.scoreByTemperature = scoreByTemperature;
+        this.scoreByCompatibility = scoreByCompatibility;
+        this.scoreByColor = scoreByColor;
+        this.scoreByWeather = scoreByWeather;
+    }
+
+    /**
+     * Loads and compiles compatibility.csv, colors.csv, weather.csv and temperature.csv from the classpath
+     *
+     * @return the compiled rules, as version 1
+     * @throws IOException if reading any of the CSV files fails
+     */
+    public static RuleSet loadFromClasspath() throws IOException {
+        return loadFromClasspath(1);
+    }
+
+    /**
+     * Loads and compiles the rule CSVs from the classpath
+     *
+     * @param version is the version the loaded rules are published as
+     * @throws IOException if reading any of the CSV files fails
+     */
+    public static RuleSet loadFromClasspath(long version) throws IOException {
+        RuleVocabulary vocabulary = new RuleVocabulary();
+        ScoreByCompatibility scoreByCompatibility = new ScoreByCompatibility(vocabulary);
+        ScoreByColor scoreByColor = new ScoreByColor(vocabulary);
+        ScoreByWeather scoreByWeather = new ScoreByWeather(vocabulary);
+        ScoreByTemperature scoreByTemperature = new ScoreByTemperature(vocabulary);
+
+        scoreByCompatibility.loadFromCSV();
+        scoreByColor.loadFromCSV();
+        scoreByWeather.loadFromCSV();
+        scoreByTemperature.loadFromCSV();
+
+        return compile(version, "classpath:*.csv", vocabulary, scoreByTemperature, scoreByCompatibility, scoreByColor,
+            scoreByWeather);
+    }
+
+    /**
+     * Loads and compiles the rule CSVs (the FILES) from a directory
+     *
+     * @param version is the version the loaded rules are published as
+     * @throws IOException if any of the files is missing or cannot be read
+     */
+    public static RuleSet loadFromDirectory(Path directory, long version) throws IOException {
+        RuleVocabulary vocabulary = new RuleVocabulary();
+        ScoreByCompatibility scoreByCompatibility = new ScoreByCompatibility(vocabulary);
+        ScoreByColor scoreByColor = new ScoreByColor(vocabulary);
+        ScoreByWeather scoreByWeather = new ScoreByWeather(vocabulary);
+        ScoreByTemperature scoreByTemperature = new ScoreByTemperature(vocabulary);
+
+        scoreByCompatibility.loadFromCSV(open(directory, "compatibility.csv"));
+        scoreByColor.loadFromCSV(open(directory, "colors.csv"));
+        scoreByWeather.loadFromCSV(open(directory, "weather.csv"));
+        scoreByTemperature.loadFromCSV(open(directory, "temperature.csv"));
+
+        return compile(version, directory.toString(), vocabulary, scoreByTemperature, scoreByCompatibility,
+            scoreByColor, scoreByWeather);
+    }
+
+    /**
+     * Loads the precompiled rules from the rules.bin bundle on the classpath
+     *
+     * @param version is the version the loaded rules are published as
+     * @return the rules, or null if there is no bundle on the classpath
+     * @throws IOException if the bundle is malformed or was compiled from other CSVs than the ones on the classpath
+     */
+    public static RuleSet loadBundleFromClasspath(long version) throws IOException {
+        byte[] bundle = readFromClasspath(BUNDLE);
+        if (bundle == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bundle);
+        try {
+            byte[] magic = new byte[BUNDLE_MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, BUNDLE_MAGIC)) {
+                throw new IOException(BUNDLE + " is not a rule bundle");
+            }
+            if (buffer.getLong() != classpathChecksum()) {
+                throw new IOException(BUNDLE + " is out of date with the rule CSVs");
+            }
+
+            RuleVocabulary vocabulary = new RuleVocabulary();
+            ScoreByCompatibility scoreByCompatibility = new ScoreByCompatibility(vocabulary);
+            ScoreByColor scoreByColor = new ScoreByColor(vocabulary);
+            ScoreByWeather scoreByWeather = new ScoreByWeather(vocabulary);
+            ScoreByTemperature scoreByTemperature = new ScoreByTemperature(vocabulary);
+
+            vocabulary.readFrom(buffer);
+            scoreByCompatibility.readCompiled(buffer);
+            scoreByColor.readCompiled(buffer);
+            scoreByWeather.readCompiled(buffer);
+            scoreByTemperature.readCompiled(buffer);
+            if (buffer.hasRemaining()) {
+                throw new IOException(BUNDLE + " has " + buffer.remaining() + " trailing bytes");
+            }
+            return new RuleSet(version, "classpath:" + BUNDLE, vocabulary, scoreByTemperature, scoreByCompatibility,
+                scoreByColor, scoreByWeather);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed " + BUNDLE, e);
+        }
+    }
+
+    /**
+     * Writes these rules as a bundle
+     *
+     * @param sourceChecksum is the checksum (see checksum) of the CSVs the rules were loaded from
+     */
+    public void writeBundle(OutputStream outputStream, long sourceChecksum) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.write(BUNDLE_MAGIC);
+        out.writeLong(sourceChecksum);
+        vocabulary.writeTo(out);
+        scoreByCompatibility.writeCompiled(out);
+        scoreByColor.writeCompiled(out);
+        scoreByWeather.writeCompiled(out);
+        scoreByTemperature.writeCompiled(out);
+        out.flush();
+    }
+
+    /**
+     * @return the CRC32 of the FILES in a directory, in order
+     */
+    public static long checksum(Path directory) throws IOException {
+        CRC32 crc = new CRC32();
+        for (String file : FILES) {
+            crc.update(Files.readAllBytes(directory.resolve(file)));
+        }
+        return crc.getValue();
+    }
+
+    private static long classpathChecksum() throws IOException {
+        CRC32 crc = new CRC32();
+        for (String file : FILES) {
+            byte[] bytes = readFromClasspath(file);
+            if (bytes == null) {
+                throw new IOException(file + " not found in classpath");
+            }
+            crc.update(bytes);
+        }
+        return crc.getValue();
+    }
+
+    private static byte[] readFromClasspath(String file) throws IOException {
+        try (InputStream inputStream = RuleSet.class.getClassLoader().getResourceAsStream(file)) {
+            return inputStream == null ? null : inputStream.readAllBytes();
+        }
+    }
+
+    private static InputStream open(Path directory, String file) throws IOException {
+        return Files.newInputStream(directory.resolve(file));
+    }
+
+    private static RuleSet compile(long version, String source, RuleVocabulary vocabulary,
+            ScoreByTemperature scoreByTemperature, ScoreByCompatibility scoreByCompatibility,
+            ScoreByColor scoreByColor, ScoreByWeather scoreByWeather) {
+
+        scoreByCompatibility.compile();
+        scoreByColor.compile();
+        scoreByWeather.compile();
+        scoreByTemperature.compile();
+
+        return new RuleSet(version, source, vocabulary, scoreByTemperature, scoreByCompatibility, scoreByColor,
+            scoreByWeather);
+    }
+
+    public long getVersion() { return version; }
+    public String getSource() { return source; }
+    public RuleVocabulary getVocabulary() { return vocabulary; }
+    public ScoreByTemperature getScoreByTemperature() { return scoreByTemperature; }
+    public ScoreByCompatibility getScoreByCompatibility() { return scoreByCompatibility; }
+    public ScoreByColor getScoreByColor() { return scoreByColor; }
+    public ScoreByWeather getScoreByWeather() { return scoreByWeather; }
+}
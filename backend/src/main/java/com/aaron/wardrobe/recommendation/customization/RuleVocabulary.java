@@ -0,0 +1,107 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the subtypes, colors and weather conditions named in the rule CSVs into dense integer ids, so the
+ * scorers can keep their tables as flat primitive arrays indexed by id. Ids are assigned in the order names are
+ * first seen while loading, and names that never appear in any rule table resolve to -1.
+ */
+public class RuleVocabulary {
+
+    public static final int UNKNOWN = -1;
+
+    private final Names subtypes = new Names();
+    private final Names colors = new Names();
+    private final Names weathers = new Names();
+
+    public int internSubtype(String subtype) { return subtypes.intern(subtype); }
+    public int internColor(String color) { return colors.intern(color); }
+    public int internWeather(String weather) { return weathers.intern(weather); }
+
+    public int subtypeId(String subtype) { return subtypes.idOf(subtype); }
+    public int colorId(String color) { return colors.idOf(color); }
+    public int weatherId(String weather) { return weathers.idOf(weather); }
+
+    public String subtypeName(int id) { return subtypes.nameOf(id); }
+    public String colorName(int id) { return colors.nameOf(id); }
+    public String weatherName(int id) { return weathers.nameOf(id); }
+
+    public int subtypeCount() { return subtypes.size(); }
+    public int colorCount() { return colors.size(); }
+    public int weatherCount() { return weathers.size(); }
+
+    /**
+     * Writes every name in id order, so readFrom assigns the same ids
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        subtypes.writeTo(out);
+        colors.writeTo(out);
+        weathers.writeTo(out);
+    }
+
+    /**
+     * Interns the names written by writeTo into this (empty) vocabulary
+     */
+    public void readFrom(ByteBuffer buffer) {
+        subtypes.readFrom(buffer);
+        colors.readFrom(buffer);
+        weathers.readFrom(buffer);
+    }
+
+    private static class Names {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        private int intern(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        private int idOf(String name) {
+            if (name == null) {
+                return UNKNOWN;
+            }
+            Integer id = ids.get(name);
+            return id == null ? UNKNOWN : id;
+        }
+
+        private String nameOf(int id) {
+            return names.get(id);
+        }
+
+        private int size() {
+            return names.size();
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(names.size());
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private void readFrom(ByteBuffer buffer) {
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getShort();
+                intern(new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8));
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+}
@@ -1,28 +1,42 @@
 package com.aaron.wardrobe.recommendation.customization.colorScore;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.recommendation.customization.RuleVocabulary;
 
 /**
- * This class creates a mapping for each ClothingItem color and the colors they do NOT match with, and 
+ * This class creates a mapping for each ClothingItem color and the colors they do NOT match with, and
  * uses the map to score a given ClothingItem based on its color compatibility.
- * 
- * List of possible colors: black, white, grey, brown, pink, maroon, cyan, magenta, olive, cream, navy-blue, 
+ *
+ * List of possible colors: black, white, grey, brown, pink, maroon, cyan, magenta, olive, cream, navy-blue,
  * sky-blue, lavender, red, blue, yellow, gold, orange, green, purple
+ *
+ * Once compiled, the mapping is stored as a flat color x color byte matrix indexed by vocabulary id, where 1
+ * means the row color does not match the column color.
  */
 public class ScoreByColor {
 
-    private final Map<String, List<String>> uncompatibleColorsMap = new HashMap<>();
+    private final RuleVocabulary vocabulary;
+    private List<int[]> uncompatibleColorPairs = new ArrayList<>();
+
+    private int colorCount;
+    private byte[] uncompatibleColors = new byte[0];
+
+    public ScoreByColor(RuleVocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
 
     /**
      * Loads the graph containing each clothing subtype and their compatibility mappings from the CSV file
-     * 
+     *
      * @throws IOException if reading the CSV file fails
      */
     public void loadFromCSV() throws IOException {
@@ -30,40 +44,98 @@ public class ScoreByColor {
         if (inputStream == null) {
             throw new IOException("colors.csv not found in classpath");
         }
+        loadFromCSV(inputStream);
+    }
+
+    /**
+     * Loads the table from a stream in the same CSV format, closing the stream afterwards
+     *
+     * @throws IOException if reading the stream fails
+     */
+    public void loadFromCSV(InputStream inputStream) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             List<String> lines = reader.lines().collect(Collectors.toList());
             for (String line : lines) {
                 String[] parts = line.split(":");
                 if (parts.length != 2) continue;
 
-                String color = parts[0].trim();
-                List<String> badColors = Arrays.asList(parts[1].split(","));
-
-                uncompatibleColorsMap.put(color, badColors);
+                int color = vocabulary.internColor(parts[0].trim());
+                for (String badColor : parts[1].split(",")) {
+                    uncompatibleColorPairs.add(new int[] { color, vocabulary.internColor(badColor.trim()) });
+                }
             }
         }
     }
 
+    /**
+     * Builds the color matrix from the loaded mappings. Must be called once every rule table has been loaded.
+     */
+    public void compile() {
+        colorCount = vocabulary.colorCount();
+        uncompatibleColors = new byte[colorCount * colorCount];
+        for (int[] pair : uncompatibleColorPairs) {
+            uncompatibleColors[pair[0] * colorCount + pair[1]] = 1;
+        }
+        uncompatibleColorPairs = null;
+    }
+
+    /**
+     * Writes the compiled matrix to a rule bundle
+     */
+    public void writeCompiled(DataOutputStream out) throws IOException {
+        out.writeInt(colorCount);
+        out.write(uncompatibleColors);
+    }
+
+    /**
+     * Takes the matrix from a rule bundle written by writeCompiled, instead of loading and compiling the CSV
+     */
+    public void readCompiled(ByteBuffer buffer) {
+        colorCount = buffer.getInt();
+        uncompatibleColors = new byte[colorCount * colorCount];
+        buffer.get(uncompatibleColors);
+        uncompatibleColorPairs = null;
+    }
+
     /**
      * Scores a ClothingItem based on how well it's color complements the rest of the outfit.
-     * 
+     *
      * @param item is the ClothingItem to be scored
      * @param currentOutfit is a list of ClothingItems representing the current outfit
      * @return the integer score of the ClothingItem, with lower scores being more ideal
      */
     public int score(ClothingItem item, List<ClothingItem> currentOutfit) {
+        int colorId = vocabulary.colorId(item.getColor());
         int score = 0;
-        if (currentOutfit.isEmpty()) {
-            return score;
-        }
-        String itemColor = item.getColor();
         for (ClothingItem outfitItem : currentOutfit) {
-            String outfitItemColor = outfitItem.getColor();
-            if (uncompatibleColorsMap.containsKey(itemColor) && 
-                uncompatibleColorsMap.get(itemColor).contains(outfitItemColor)) {
-                score += 1;
-            }
+            score += pairScore(colorId, vocabulary.colorId(outfitItem.getColor()));
         }
         return score;
     }
+
+    /**
+     * Scores a color based on how well it complements the first outfitSize colors of the outfit.
+     *
+     * @param colorId is the vocabulary id of the color to be scored
+     * @param outfitColorIds holds the vocabulary ids of the colors in the current outfit
+     * @param outfitSize is the number of items in the current outfit
+     * @return the integer score of the color, with lower scores being more ideal
+     */
+    public int score(int colorId, int[] outfitColorIds, int outfitSize) {
+        int score = 0;
+        for (int i = 0; i < outfitSize; i++) {
+            score += pairScore(colorId, outfitColorIds[i]);
+        }
+        return score;
+    }
+
+    /**
+     * @return 1 if the first color does not match the second color, otherwise 0
+     */
+    public int pairScore(int colorId, int otherColorId) {
+        if (colorId < 0 || otherColorId < 0) {
+            return 0;
+        }
+        return uncompatibleColors[colorId * colorCount + otherColorId];
+    }
 }
@@ -1,30 +1,44 @@
 package com.aaron.wardrobe.recommendation.customization.compatabilityScore;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.aaron.wardrobe.clothingItem.ClothingItem;
-
-import java.util.HashMap;
+import com.aaron.wardrobe.recommendation.customization.RuleVocabulary;
 
 /**
  * A weighted graph representing how compatible each ClothingItem subtype is with each other subtype.
  * The heigher weight of an edge between two subtypes represents less compatibility, and two subtypes
  * without a connecting edge are uncompatible.
+ *
+ * Once compiled, the graph is stored as a flat subtype x subtype adjacency matrix indexed by vocabulary id.
  */
 public class ScoreByCompatibility {
 
-    Map<String, Map<String, Integer>> graph = new HashMap<>();
+    public static final int NO_EDGE_SCORE = 3;
+
+    private final RuleVocabulary vocabulary;
+    private List<int[]> edges = new ArrayList<>();
+
+    private int subtypeCount;
+    private int[] matrix = new int[0];
+
+    public ScoreByCompatibility(RuleVocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
 
     /**
      * Loads the graph containing each clothing subtype and their compatibility mappings from
      * the CSV file
-     * 
+     *
      * @throws IOException if reading the CSV file fails
      */
     public void loadFromCSV() throws IOException {
@@ -32,6 +46,15 @@ public class ScoreByCompatibility {
         if (inputStream == null) {
             throw new IOException("compatibility.csv not found in classpath");
         }
+        loadFromCSV(inputStream);
+    }
+
+    /**
+     * Loads the table from a stream in the same CSV format, closing the stream afterwards
+     *
+     * @throws IOException if reading the stream fails
+     */
+    public void loadFromCSV(InputStream inputStream) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             List<String> lines = reader.lines().collect(Collectors.toList());
             for (String line : lines) {
@@ -47,36 +70,97 @@ public class ScoreByCompatibility {
         }
     }
 
+    /**
+     * Builds the adjacency matrix from the loaded edges. Must be called once every rule table has been
+     * loaded, so the matrix covers the full subtype vocabulary.
+     */
+    public void compile() {
+        subtypeCount = vocabulary.subtypeCount();
+        matrix = new int[subtypeCount * subtypeCount];
+        Arrays.fill(matrix, NO_EDGE_SCORE);
+        for (int[] edge : edges) {
+            matrix[edge[0] * subtypeCount + edge[1]] = edge[2];
+            matrix[edge[1] * subtypeCount + edge[0]] = edge[2];
+        }
+        edges = null;
+    }
+
+    /**
+     * Writes the compiled matrix to a rule bundle
+     */
+    public void writeCompiled(DataOutputStream out) throws IOException {
+        out.writeInt(subtypeCount);
+        for (int score : matrix) {
+            out.writeInt(score);
+        }
+    }
+
+    /**
+     * Takes the matrix from a rule bundle written by writeCompiled, instead of loading and compiling the CSV
+     */
+    public void readCompiled(ByteBuffer buffer) {
+        subtypeCount = buffer.getInt();
+        matrix = new int[subtypeCount * subtypeCount];
+        buffer.asIntBuffer().get(matrix);
+        buffer.position(buffer.position() + matrix.length * Integer.BYTES);
+        edges = null;
+    }
+
     /**
      * Scores a ClothinItem based on how compatible it is with the rest of the outfit
-     * 
+     *
      * @param item is the ClothingItem to be scored
      * @param currentOutfit is a list of ClothingItems representing the current outfit
      * @return the integer score of the ClothingItem, with lower scores being more ideal
      */
     public int score(ClothingItem item, List<ClothingItem> currentOutfit) {
+        int subtypeId = vocabulary.subtypeId(item.getSubtype());
         int score = 0;
-        if (currentOutfit.isEmpty()) {
-            return score;
-        }
-        String subtype = item.getSubtype();
         for (ClothingItem outfitItem : currentOutfit) {
-            String outfitItemSubtype = outfitItem.getSubtype();
-            score += graph.get(subtype).getOrDefault(outfitItemSubtype, 3);
+            score += pairScore(subtypeId, vocabulary.subtypeId(outfitItem.getSubtype()));
+        }
+        return score;
+    }
+
+    /**
+     * Scores a subtype based on how compatible it is with the first outfitSize subtypes of the outfit
+     *
+     * @param subtypeId is the vocabulary id of the subtype to be scored
+     * @param outfitSubtypeIds holds the vocabulary ids of the subtypes in the current outfit
+     * @param outfitSize is the number of items in the current outfit
+     * @return the integer score of the subtype, with lower scores being more ideal
+     */
+    public int score(int subtypeId, int[] outfitSubtypeIds, int outfitSize) {
+        int score = 0;
+        for (int i = 0; i < outfitSize; i++) {
+            score += pairScore(subtypeId, outfitSubtypeIds[i]);
         }
         return score;
     }
 
+    /**
+     * @return the weight of the edge between two subtypes, or NO_EDGE_SCORE if they are not connected
+     */
+    public int pairScore(int subtypeId, int otherSubtypeId) {
+        if (subtypeId < 0 || otherSubtypeId < 0) {
+            return NO_EDGE_SCORE;
+        }
+        return matrix[subtypeId * subtypeCount + otherSubtypeId];
+    }
+
     /**
      * Creates an edge between two clothing subtypes with how compatible they are
-     * 
+     *
      * @param predecessor is the current subtype
      * @param successor is the subtype being compared with predecessor
-     * @param compatabilityScore is a numeric rating of how compatible the items are, with a 
+     * @param compatabilityScore is a numeric rating of how compatible the items are, with a
      */
     public void addEdge(String predecessor, String successor, int compatabilityScore) {
-        graph.computeIfAbsent(predecessor, k -> new HashMap<>()).put(successor, compatabilityScore);
-        graph.computeIfAbsent(successor, k -> new HashMap<>()).put(predecessor, compatabilityScore);
+        edges.add(new int[] {
+            vocabulary.internSubtype(predecessor),
+            vocabulary.internSubtype(successor),
+            compatabilityScore
+        });
     }
 
 }
@@ -1,21 +1,37 @@
 package com.aaron.wardrobe.recommendation.customization.weatherScore;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.recommendation.customization.RuleVocabulary;
 
+/**
+ * This class maps each ClothingItem subtype to its ideal temperature range. Once compiled, the ranges are
+ * stored as two primitive arrays indexed by subtype vocabulary id. Subtypes without a range get NaN bounds,
+ * which always fall in the "acceptable" band.
+ */
 public class ScoreByTemperature {
 
-    private final Map<String, List<Double>> temperatureRanges= new HashMap<>();
+    private final RuleVocabulary vocabulary;
+    private Map<Integer, double[]> temperatureRanges = new HashMap<>();
+
+    private double[] minTemps = new double[0];
+    private double[] maxTemps = new double[0];
+
+    public ScoreByTemperature(RuleVocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
 
     /**
      * Loads the graph containing each ClothingItem subtype and their ideal temperature range from the CSV file
-     * 
+     *
      * @throws IOException if reading the CSV file fails
      */
     public void loadFromCSV() throws IOException {
@@ -23,37 +39,101 @@ public class ScoreByTemperature {
         if (inputStream == null) {
             throw new IOException("temperature.csv not fount in classpath");
         }
+        loadFromCSV(inputStream);
+    }
+
+    /**
+     * Loads the table from a stream in the same CSV format, closing the stream afterwards
+     *
+     * @throws IOException if reading the stream fails
+     */
+    public void loadFromCSV(InputStream inputStream) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             List<String> lines = reader.lines().collect(Collectors.toList());
             for (String line : lines) {
                 String[] parts = line.split(",");
                 if (parts.length != 3) continue;
 
-                String subtype = parts[0].trim();
+                int subtype = vocabulary.internSubtype(parts[0].trim());
                 double minTemp = Double.parseDouble(parts[1].trim());
                 double maxTemp = Double.parseDouble(parts[2].trim());
 
 
-                temperatureRanges.put(subtype, List.of(minTemp, maxTemp));
+                temperatureRanges.put(subtype, new double[] { minTemp, maxTemp });
             }
         }
     }
 
+    /**
+     * Builds the range arrays from the loaded mappings. Must be called once every rule table has been loaded.
+     */
+    public void compile() {
+        int subtypeCount = vocabulary.subtypeCount();
+        minTemps = new double[subtypeCount];
+        maxTemps = new double[subtypeCount];
+        Arrays.fill(minTemps, Double.NaN);
+        Arrays.fill(maxTemps, Double.NaN);
+        for (Map.Entry<Integer, double[]> range : temperatureRanges.entrySet()) {
+            minTemps[range.getKey()] = range.getValue()[0];
+            maxTemps[range.getKey()] = range.getValue()[1];
+        }
+        temperatureRanges = null;
+    }
+
+    /**
+     * Writes the compiled ranges to a rule bundle
+     */
+    public void writeCompiled(DataOutputStream out) throws IOException {
+        out.writeInt(minTemps.length);
+        for (int subtype = 0; subtype < minTemps.length; subtype++) {
+            out.writeDouble(minTemps[subtype]);
+            out.writeDouble(maxTemps[subtype]);
+        }
+    }
+
+    /**
+     * Takes the ranges from a rule bundle written by writeCompiled, instead of loading and compiling the CSV
+     */
+    public void readCompiled(ByteBuffer buffer) {
+        int subtypeCount = buffer.getInt();
+        minTemps = new double[subtypeCount];
+        maxTemps = new double[subtypeCount];
+        for (int subtype = 0; subtype < subtypeCount; subtype++) {
+            minTemps[subtype] = buffer.getDouble();
+            maxTemps[subtype] = buffer.getDouble();
+        }
+        temperatureRanges = null;
+    }
+
+    /**
+     * @return whether the subtype has an ideal temperature range, without one it always scores 2
+     */
+    public boolean hasRange(int subtypeId) {
+        return subtypeId >= 0 && subtypeId < minTemps.length && !Double.isNaN(minTemps[subtypeId]);
+    }
+
     public int score(ClothingItem item, double temp) {
-        String subtype = item.getSubtype();
-        List<Double> range = temperatureRanges.get(subtype);
+        return score(vocabulary.subtypeId(item.getSubtype()), temp);
+    }
+
+    /**
+     * Scores a subtype based on how close the temperature is to its ideal range
+     *
+     * @param subtypeId is the vocabulary id of the subtype to be scored
+     * @param temp is the current temperature in Farenheit
+     * @return 0 inside the range, 2 within 10 degrees of it, otherwise 5
+     */
+    public int score(int subtypeId, double temp) {
+        double minTemp = subtypeId < 0 ? Double.NaN : minTemps[subtypeId];
+        double maxTemp = subtypeId < 0 ? Double.NaN : maxTemps[subtypeId];
 
-        if (temp >= range.get(0) && temp <= range.get(1)) {
+        if (temp >= minTemp && temp <= maxTemp) {
             return 0;
         }
-        else if (temp < range.get(0) - 10 || temp > range.get(1) + 10) {
+        else if (temp < minTemp - 10 || temp > maxTemp + 10) {
             return 5;
         }
         else return 2;
     }
 
-    
-
-    
-
 }
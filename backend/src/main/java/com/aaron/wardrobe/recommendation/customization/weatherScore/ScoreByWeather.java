@@ -1,28 +1,41 @@
 package com.aaron.wardrobe.recommendation.customization.weatherScore;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.util.stream.Collectors;
 
 import com.aaron.wardrobe.clothingItem.ClothingItem;
+import com.aaron.wardrobe.recommendation.customization.RuleVocabulary;
 
 import java.util.*;
 
 /**
  * This class creates a mapping for each weather forecast and the ClothingItem subtypes that are ideal
  * for the weather and subtypes that are bad for the weather.
- * 
+ *
  * List of weather forecasts: clear, sunny, cloudy, partly-cloudy, rainy, snowy, windy
+ *
+ * Once compiled, each forecast's ideal and bad subtypes are stored as bitsets indexed by subtype vocabulary id.
  */
 public class ScoreByWeather {
 
-    private final Map<String, List<List<String>>> weatherMap = new HashMap<>();
+    private final RuleVocabulary vocabulary;
+    private Map<Integer, List<List<Integer>>> weatherMap = new HashMap<>();
+
+    private BitSet[] idealSubtypes = new BitSet[0];
+    private BitSet[] badSubtypes = new BitSet[0];
+
+    public ScoreByWeather(RuleVocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
 
     /**
      * Loads the graph containing each weather forecast and their ideal/bad mappings from the CSV file
-     * 
+     *
      * @throws IOException if reading the CSV file fails
      */
     public void loadFromCSV() throws IOException {
@@ -30,46 +43,132 @@ public class ScoreByWeather {
         if (inputStream == null) {
             throw new IOException("weather.csv not fount in classpath");
         }
+        loadFromCSV(inputStream);
+    }
+
+    /**
+     * Loads the table from a stream in the same CSV format, closing the stream afterwards
+     *
+     * @throws IOException if reading the stream fails
+     */
+    public void loadFromCSV(InputStream inputStream) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             List<String> lines = reader.lines().collect(Collectors.toList());
             for (String line : lines) {
                 String[] parts = line.split(":");
                 if (parts.length != 3) continue;
 
-                String weather = parts[0].trim();
-                List<String> idealSubtypes = Arrays.asList(parts[2].split(","));
-                List<String> badSubtypes = Arrays.asList(parts[1].split(","));
+                int weather = vocabulary.internWeather(parts[0].trim());
+                List<Integer> idealSubtypes = internSubtypes(parts[2]);
+                List<Integer> badSubtypes = internSubtypes(parts[1]);
 
                 weatherMap.put(weather, List.of(idealSubtypes, badSubtypes));
             }
         }
     }
 
+    /**
+     * Builds the bitsets from the loaded mappings. Must be called once every rule table has been loaded.
+     */
+    public void compile() {
+        int weatherCount = vocabulary.weatherCount();
+        idealSubtypes = new BitSet[weatherCount];
+        badSubtypes = new BitSet[weatherCount];
+        for (int weather = 0; weather < weatherCount; weather++) {
+            idealSubtypes[weather] = new BitSet(vocabulary.subtypeCount());
+            badSubtypes[weather] = new BitSet(vocabulary.subtypeCount());
+        }
+        for (Map.Entry<Integer, List<List<Integer>>> entry : weatherMap.entrySet()) {
+            entry.getValue().get(0).forEach(idealSubtypes[entry.getKey()]::set);
+            entry.getValue().get(1).forEach(badSubtypes[entry.getKey()]::set);
+        }
+        weatherMap = null;
+    }
+
+    /**
+     * Writes the compiled bitsets to a rule bundle
+     */
+    public void writeCompiled(DataOutputStream out) throws IOException {
+        out.writeInt(idealSubtypes.length);
+        for (int weather = 0; weather < idealSubtypes.length; weather++) {
+            writeBits(out, idealSubtypes[weather]);
+            writeBits(out, badSubtypes[weather]);
+        }
+    }
+
+    /**
+     * Takes the bitsets from a rule bundle written by writeCompiled, instead of loading and compiling the CSV
+     */
+    public void readCompiled(ByteBuffer buffer) {
+        int weatherCount = buffer.getInt();
+        idealSubtypes = new BitSet[weatherCount];
+        badSubtypes = new BitSet[weatherCount];
+        for (int weather = 0; weather < weatherCount; weather++) {
+            idealSubtypes[weather] = readBits(buffer);
+            badSubtypes[weather] = readBits(buffer);
+        }
+        weatherMap = null;
+    }
+
+    private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readBits(ByteBuffer buffer) {
+        long[] words = new long[buffer.getInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        return BitSet.valueOf(words);
+    }
+
     /**
      * Scores a ClothingItem based on whether it is ideal, bad, or acceptable for the current weather
      * forecast
-     * 
+     *
      * @param item is the ClothingItem to be scored
      * @param weather is the current weather forecast
      * @return the integer score of the ClothingItem, with lower scores being more ideal
      */
     public int score(ClothingItem item, String weather) {
-        if (weather == null || !weatherMap.containsKey(weather)) {
+        return score(vocabulary.subtypeId(item.getSubtype()), vocabulary.weatherId(weather));
+    }
+
+    /**
+     * Scores a subtype based on whether it is ideal, bad, or acceptable for the current weather forecast
+     *
+     * @param subtypeId is the vocabulary id of the subtype to be scored
+     * @param weatherId is the vocabulary id of the current weather forecast
+     * @return the integer score of the subtype, with lower scores being more ideal
+     */
+    public int score(int subtypeId, int weatherId) {
+        if (weatherId < 0) {
             return 0;
         }
+        if (subtypeId < 0) {
+            return 1;
+        }
 
-        String subtype = item.getSubtype();
-        List<String> idealSubtypes = weatherMap.get(weather).get(0);
-        List<String> badSubtypes = weatherMap.get(weather).get(1);
-
-        if (!idealSubtypes.isEmpty() && idealSubtypes.contains(subtype)) {
+        if (idealSubtypes[weatherId].get(subtypeId)) {
             return 0;
         }
-        else if (!badSubtypes.isEmpty() && badSubtypes.contains(subtype)) {
+        else if (badSubtypes[weatherId].get(subtypeId)) {
             return 3;
         }
         else {
             return 1;
         }
     }
+
+    private List<Integer> internSubtypes(String subtypes) {
+        List<Integer> ids = new ArrayList<>();
+        for (String subtype : subtypes.split(",")) {
+            ids.add(vocabulary.internSubtype(subtype.trim()));
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,42 @@
+package com.aaron.wardrobe.recommendation.customization.weatherScore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Local stand-in for WeatherAPI used for load tests and offline development (weather.provider=stub).
+ * Each city always gets the same temperature and condition, and every call sleeps for the configured
+ * latency to simulate the upstream round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.provider", havingValue = "stub")
+public class StubWeatherProvider implements WeatherProvider {
+
+    private static final List<String> CONDITIONS = List.of("clear", "sunny", "cloudy", "rainy", "snowy", "windy");
+
+    private final Duration latency;
+
+    public StubWeatherProvider(@Value("${weather.stub.latency:0ms}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public WeatherSnapshot fetch(String location) {
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while fetching stub weather", e);
+            }
+        }
+        int hash = WeatherService.normalizeCity(location).hashCode() & Integer.MAX_VALUE;
+        double temperature = 10 + (hash % 90);
+        String condition = CONDITIONS.get((hash / 90) % CONDITIONS.size());
+        return new WeatherSnapshot(temperature, condition);
+    }
+}
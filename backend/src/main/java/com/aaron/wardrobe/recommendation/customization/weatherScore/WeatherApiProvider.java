@@ -0,0 +1,88 @@
+package com.aaron.wardrobe.recommendation.customization.weatherScore;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Fetches current weather from WeatherAPI.com over a pooled keep-alive HTTP client. Every call is bounded
+ * by the connect, pool-acquire and response timeouts so a slow upstream cannot hold request threads.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.provider", havingValue = "weatherapi", matchIfMissing = true)
+public class WeatherApiProvider implements WeatherProvider {
+
+    private final String apiKey;
+    private final String baseUrl;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+
+    public WeatherApiProvider(
+        @Value("${weather.api.base-url:http://api.weatherapi.com/v1/current.json}") String baseUrl,
+        @Value("${weather.api.key:8cdd7c5eb69e4d58991215644251807}") String apiKey,
+        @Value("${weather.api.connect-timeout:500ms}") Duration connectTimeout,
+        @Value("${weather.api.read-timeout:1500ms}") Duration readTimeout,
+        @Value("${weather.api.max-connections:50}") int maxConnections
+    ) {
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnections)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .setTimeToLive(TimeValue.ofMinutes(5))
+                .build())
+            .build();
+
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                // waiting for a pooled connection counts against the same deadline as connecting
+                .setConnectionRequestTimeout(Timeout.of(connectTimeout))
+                .setResponseTimeout(Timeout.of(readTimeout))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(30))
+            .build();
+
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    @Override
+    @SuppressWarnings("null")
+    public WeatherSnapshot fetch(String location) {
+        String uri = UriComponentsBuilder.fromUriString(baseUrl)
+                .queryParam("key", apiKey)
+                .queryParam("q", location)
+                .toUriString();
+
+        WeatherApiResponse response = restTemplate.getForObject(uri, WeatherApiResponse.class);
+        return new WeatherSnapshot(
+            response.getCurrent().getTemp_f(),
+            WeatherService.simplifyCondition(response.getCurrent().getCondition().getText())
+        );
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,16 @@
+package com.aaron.wardrobe.recommendation.customization.weatherScore;
+
+/**
+ * A source of current weather data for a city. WeatherService layers caching, single-flight requests and
+ * the circuit breaker on top of whichever provider is configured with the weather.provider property.
+ */
+public interface WeatherProvider {
+
+    /**
+     * Fetches the current weather of the specified city, blocking for at most the provider's deadline.
+     *
+     * @param location is the city name to fetch weather for (e.g. "Eugene")
+     * @return the current weather snapshot of the given city
+     */
+    WeatherSnapshot fetch(String location);
+}
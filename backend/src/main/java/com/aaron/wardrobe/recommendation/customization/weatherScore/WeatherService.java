@@ -1,55 +1,188 @@
 package com.aaron.wardrobe.recommendation.customization.weatherScore;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.aaron.wardrobe.metrics.PipelineMetrics;
+
+import jakarta.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * This class queries data from WeatherAPI, retrieving real-time, simplified weather conditions and 
- * current temperatures. 
- * Supports converting raw weather descriptions into standardized categories (clear, 
+ * This class retrieves real-time, simplified weather conditions and current temperatures from the
+ * configured WeatherProvider.
+ * Supports converting raw weather descriptions into standardized categories (clear,
  * sunny, cloudy, rainy, snowy, windy) and fetching the current temperature in Fahrenheit.
+ *
+ * Snapshots are cached per normalized city for a configurable TTL, and concurrent cache misses for the
+ * same city share a single in-flight request. Once a snapshot expires it is still served for up to
+ * weather.cache.max-stale while a background refresh runs, and if the provider is slow, failing or behind an
+ * open circuit breaker the last known snapshot is returned instead of an error.
+ *
+ * The circuit breaker only counts server errors, I/O errors and timeouts as failures. A 4xx such as an unknown
+ * city is the caller's mistake, and is rethrown without counting against the provider.
+ *
+ * Every fetch runs on the weather-fetch pool, and callers, including the one that started the fetch, wait for it
+ * for at most weather.deadline. A fetch that misses the deadline keeps running and still caches its snapshot for
+ * later requests. The pool grows to weather.fetch.max-threads; fetches beyond that fail straight away rather
+ * than queue, and fall back to the last snapshot like any other failure.
  */
 @Service
 public class WeatherService {
 
-    private final String API_KEY = "8cdd7c5eb69e4d58991215644251807";
-    private final String BASE_URL = "http://api.weatherapi.com/v1/current.json";
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final WeatherProvider provider;
+    private final PipelineMetrics metrics;
+    private final CircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor fetchExecutor;
+
+    private final Map<String, CachedSnapshot> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<WeatherSnapshot>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final long deadlineNanos;
+    private final int maxEntries;
+
+    public WeatherService(
+        WeatherProvider provider,
+        PipelineMetrics metrics,
+        @Value("${weather.cache.ttl:10m}") Duration ttl,
+        @Value("${weather.cache.max-stale:1h}") Duration maxStale,
+        @Value("${weather.cache.max-entries:1000}") int maxEntries,
+        @Value("${weather.deadline:2s}") Duration deadline,
+        @Value("${weather.circuit.failure-threshold:5}") int failureThreshold,
+        @Value("${weather.circuit.open-duration:30s}") Duration openDuration,
+        @Value("${weather.fetch.max-threads:${weather.api.max-connections:50}}") int maxFetchThreads
+    ) {
+        this.provider = provider;
+        this.metrics = metrics;
+        this.ttlNanos = ttl.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.maxEntries = maxEntries;
+        this.deadlineNanos = deadline.toNanos();
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        // single flight per city means at most one thread per city in flight, so no queue is needed
+        this.fetchExecutor = new ThreadPoolExecutor(0, maxFetchThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "weather-fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Fetches the current temperature and simplified weather condition for the specified city, serving
+     * from the cache when a fresh or revalidating snapshot exists.
+     *
+     * @param location is the city name to fetch weather for (e.g. "Eugene")
+     * @return the current weather snapshot of the given city
+     * @throws IllegalStateException if the weather cannot be fetched and no previous snapshot is cached
+     */
+    public WeatherSnapshot getWeatherSnapshot(String location) {
+        long start = metrics.start();
+        String key = normalizeCity(location);
+        long now = System.nanoTime();
+
+        CachedSnapshot cached = cache.get(key);
+        if (cached != null && cached.isFresh(now)) {
+            cacheHits.increment();
+            metrics.recordWeatherHit(start);
+            return cached.snapshot;
+        }
+        if (cached != null && cached.isRevalidatable(now, maxStaleNanos)) {
+            staleHits.increment();
+            load(key, location);
+            metrics.recordWeatherStaleHit(start);
+            return cached.snapshot;
+        }
+        cacheMisses.increment();
+
+        try {
+            WeatherSnapshot snapshot = await(load(key, location));
+            metrics.recordWeatherMiss(start);
+            return snapshot;
+        } catch (RuntimeException e) {
+            if (cached != null) {
+                fallbacks.increment();
+                metrics.recordWeatherFallback(start);
+                return cached.snapshot;
+            }
+            metrics.recordWeatherMiss(start);
+            throw new IllegalStateException("Weather is unavailable for " + location, e);
+        }
+    }
 
     /**
      * Fetches the current temperature in Farenheit for the specified city
-     * 
+     *
      * @param location is the city name to fetch temperature for (e.g. "Eugene")
      * @return the current temperature in Farenheit of the given city
      */
-    @SuppressWarnings("null")
     public double getCurrentTemperature(String location) {
-        String uri = UriComponentsBuilder.fromUriString(BASE_URL)
-                .queryParam("key", API_KEY)
-                .queryParam("q", location)
-                .toUriString();
-
-        WeatherApiResponse response = restTemplate.getForObject(uri, WeatherApiResponse.class);
-        return response.getCurrent().getTemp_f();
+        return getWeatherSnapshot(location).getTemperature();
     }
 
     /**
      * Fetches the current weather condition of the specified city and simplifies it to
      * one of: clear, sunny, cloudy, rainy, snowy, windy
-     * 
+     *
      * @param location is the city name to fetch weather conditions for (e.g. "Eugene")
      * @return the simplified weather condition of the given city
      */
-    @SuppressWarnings("null")
     public String getSimplifiedWeatherCondition(String location) {
-        String uri = UriComponentsBuilder.fromUriString(BASE_URL)
-                .queryParam("key", API_KEY)
-                .queryParam("q", location)
-                .toUriString();
+        return getWeatherSnapshot(location).getCondition();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
 
-        WeatherApiResponse response = restTemplate.getForObject(uri, WeatherApiResponse.class);
-        String original = response.getCurrent().getCondition().getText().toLowerCase();
+    /**
+     * Simplifies a raw WeatherAPI condition description to one of: clear, sunny, cloudy, rainy, snowy, windy
+     *
+     * @param text is the raw condition description (e.g. "Patchy light drizzle")
+     * @return the simplified weather condition
+     */
+    static String simplifyCondition(String text) {
+        String original = text.toLowerCase();
 
         if (original.contains("clear")) return "clear";
         if (original.contains("sunny")) return "sunny";
@@ -60,4 +193,113 @@ public class WeatherService {
 
         return "clear";
     }
+
+    /**
+     * Normalizes a city name so that "Eugene", " eugene " and "EUGENE" share one cache entry
+     */
+    public static String normalizeCity(String location) {
+        return location.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Starts loading the weather for a city on the fetch pool unless a load is already in flight, in which case
+     * the existing load is joined
+     */
+    private CompletableFuture<WeatherSnapshot> load(String key, String location) {
+        CompletableFuture<WeatherSnapshot> pending = new CompletableFuture<>();
+        CompletableFuture<WeatherSnapshot> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            return existing;
+        }
+
+        Runnable task = () -> {
+            try {
+                WeatherSnapshot snapshot = fetchThroughCircuit(location);
+                store(key, snapshot);
+                pending.complete(snapshot);
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, pending);
+            }
+        };
+
+        try {
+            fetchExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, pending);
+            pending.completeExceptionally(e);
+        }
+        return pending;
+    }
+
+    private WeatherSnapshot fetchThroughCircuit(String location) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new IllegalStateException("Weather provider circuit is open");
+        }
+        try {
+            WeatherSnapshot snapshot = provider.fetch(location);
+            circuitBreaker.recordSuccess();
+            return snapshot;
+        } catch (HttpServerErrorException | ResourceAccessException e) {
+            // 5xx, I/O errors and timeouts are the only signs the provider itself is unhealthy
+            circuitBreaker.recordFailure();
+            throw e;
+        } catch (RuntimeException e) {
+            // the provider answered, e.g. 400 for an unknown city, so one bad request cannot open the circuit for
+            // every city, and a half-open trial that gets such an answer still closes it
+            circuitBreaker.recordSuccess();
+            throw e;
+        }
+    }
+
+    private void store(String key, WeatherSnapshot snapshot) {
+        long now = System.nanoTime();
+        if (cache.size() >= maxEntries && !cache.containsKey(key)) {
+            cache.values().removeIf(entry -> !entry.isRevalidatable(now, maxStaleNanos));
+            if (cache.size() >= maxEntries) {
+                return;
+            }
+        }
+        cache.put(key, new CachedSnapshot(snapshot, now + ttlNanos));
+    }
+
+    private WeatherSnapshot await(CompletableFuture<WeatherSnapshot> future) {
+        try {
+            return future.get(deadlineNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for weather", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for weather", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    private static class CachedSnapshot {
+        private final WeatherSnapshot snapshot;
+        private final long expiresAtNanos;
+
+        private CachedSnapshot(WeatherSnapshot snapshot, long expiresAtNanos) {
+            this.snapshot = snapshot;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isFresh(long now) {
+            return now - expiresAtNanos < 0;
+        }
+
+        private boolean isRevalidatable(long now, long maxStaleNanos) {
+            return now - expiresAtNanos < maxStaleNanos;
+        }
+    }
 }
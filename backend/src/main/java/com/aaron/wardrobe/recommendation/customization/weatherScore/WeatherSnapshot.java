@@ -0,0 +1,16 @@
+package com.aaron.wardrobe.recommendation.customization.weatherScore;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The current temperature and simplified weather condition of a city, fetched together from a single
+ * WeatherAPI response.
+ */
+@Data
+@AllArgsConstructor
+public class WeatherSnapshot {
+
+    private double temperature; // Farenheit
+    private String condition; // clear, sunny, cloudy, rainy, snowy, windy
+}
@@ -18,6 +18,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 @AllArgsConstructor
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheEvictionListener.class)
 public class User implements UserDetails {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,6 +34,18 @@ public class User implements UserDetails {
     @JsonIgnore
     private List<ClothingItem> clothingItems;
 
+    // bumped only by WardrobeVersions whenever an item of the user is written, shared by every node
+    @Column(nullable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    @JsonIgnore
+    private long wardrobeVersion;
+
+    public User(Long id, String username, String password, List<ClothingItem> clothingItems) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.clothingItems = clothingItems;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.emptyList();
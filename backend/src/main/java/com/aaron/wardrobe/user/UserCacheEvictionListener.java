@@ -0,0 +1,27 @@
+package com.aaron.wardrobe.user;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Evicts a user's cached principal from UserService whenever the user row is updated (e.g. a password change)
+ * or deleted, whichever code path made the change.
+ */
+@Component
+public class UserCacheEvictionListener {
+
+    private final UserService userService;
+
+    public UserCacheEvictionListener(@Lazy UserService userService) {
+        this.userService = userService;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        userService.evict(user.getUsername());
+    }
+}
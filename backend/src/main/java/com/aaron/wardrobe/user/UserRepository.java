@@ -1,7 +1,11 @@
 package com.aaron.wardrobe.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -9,4 +13,16 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
+
+    @Query("select u.wardrobeVersion from User u where u.id = :id")
+    Optional<Long> findWardrobeVersion(@Param("id") Long id);
+
+    /**
+     * Bumps the wardrobe version with a bulk update, which leaves the entity listeners (and so the principal
+     * cache) alone
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.wardrobeVersion = u.wardrobeVersion + 1 where u.id = :id")
+    int incrementWardrobeVersion(@Param("id") Long id);
 }
@@ -1,17 +1,37 @@
 package com.aaron.wardrobe.user;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 // import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
+import com.aaron.wardrobe.cache.LruCache;
+
+import java.time.Duration;
+
 // import java.util.Collections;
 
+/**
+ * Loads users for HTTP Basic authentication. Lookups are served from a bounded, TTL-based cache of lightweight
+ * principals (id, username and password hash only), so a steady stream of requests from the same user does not
+ * query the database each time. Entries are evicted by UserCacheEvictionListener whenever a user is updated
+ * or deleted.
+ */
 @Service
 public class UserService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    private final LruCache<String, CachedPrincipal> principals;
+
+    public UserService(
+        @Value("${security.user-cache.max-entries:10000}") int maxEntries,
+        @Value("${security.user-cache.ttl:5m}") Duration ttl
+    ) {
+        this.principals = new LruCache<>(maxEntries, ttl);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         /*
@@ -24,7 +44,47 @@ public class UserService implements UserDetailsService {
             Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
         );
         */
-        return userRepository.findByUsername(username)
-            .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        CachedPrincipal principal = principals.get(username);
+        if (principal == null) {
+            User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            principal = new CachedPrincipal(user.getId(), user.getUsername(), user.getPassword());
+            principals.put(username, principal);
+        }
+        return principal.toUser();
+    }
+
+    /**
+     * Drops the cached principal of a user, e.g. after their password changed or they were deleted
+     */
+    public void evict(String username) {
+        principals.remove(username);
+    }
+
+    public LruCache<String, CachedPrincipal> getPrincipalCache() {
+        return principals;
+    }
+
+    /**
+     * The fields authentication needs, kept instead of the entity so the cache never holds a persistence
+     * context reference or the clothingItems collection.
+     */
+    public static class CachedPrincipal {
+        private final Long id;
+        private final String username;
+        private final String passwordHash;
+
+        private CachedPrincipal(Long id, String username, String passwordHash) {
+            this.id = id;
+            this.username = username;
+            this.passwordHash = passwordHash;
+        }
+
+        /**
+         * @return a detached User for this request, so nothing done to the principal can leak into the cache
+         */
+        private User toUser() {
+            return new User(id, username, passwordHash, null);
+        }
     }
 }
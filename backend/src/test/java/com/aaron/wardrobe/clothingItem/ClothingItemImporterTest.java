@@ -0,0 +1,259 @@
+package com.aaron.wardrobe.clothingItem;
+
+import com.aaron.wardrobe.recommendation.customization.RuleRegistry;
+import com.aaron.wardrobe.user.User;
+import com.aaron.wardrobe.user.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ClothingItemImporterTest {
+
+    private static final RuleRegistry RULES = new RuleRegistry("", false, true);
+
+    private final User user = new User(1L, "someone", null, null);
+
+    private JdbcTemplate jdbcTemplate;
+    private ClothingItemService clothingItemService;
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        clothingItemService = mock(ClothingItemService.class);
+        userRepository = mock(UserRepository.class);
+    }
+
+    @Test
+    void reportsInvalidRowsByPositionAndImportsTheRest() throws IOException {
+        ImportResult result = importer(2, 100).importItems(user, json("""
+            [
+              {"name": "tee", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"},
+              {"name": "", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"},
+              {"name": "hat", "type": "hat", "subtype": "cap", "color": "black", "formality": "casual"},
+              {"name": "jeans", "type": "bottom", "subtype": "jeans", "color": "blue", "formality": "any"},
+              {"name": "odd", "type": "top", "subtype": "toga", "color": "black", "formality": "casual"},
+              {"name": "boots", "type": "footwear", "subtype": "boots", "color": "mauve-ish", "formality": "any"},
+              {"name": "sneakers", "type": "footwear", "subtype": "sneakers", "color": "white", "formality": "any"}
+            ]"""));
+
+        assertEquals(7, result.getReceived());
+        assertEquals(3, result.getImported());
+        assertEquals(4, result.getFailed());
+        assertEquals(List.of(2L, 3L, 5L, 6L), result.getErrors().stream().map(ImportRowError::getRow).toList());
+        assertEquals("name is required", result.getErrors().get(0).getMessage());
+        assertTrue(result.getErrors().get(1).getMessage().startsWith("type must be one of"));
+        assertEquals("unknown subtype: toga", result.getErrors().get(2).getMessage());
+        assertEquals("unknown color: mauve-ish", result.getErrors().get(3).getMessage());
+        // a full batch of two and the remaining row, each with its own version bump
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(clothingItemService, times(2)).wardrobeChanged(user);
+    }
+
+    @Test
+    void skipsARowOfTheWrongShape() throws IOException {
+        ImportResult result = importer(500, 100).importItems(user, json("""
+            {"name": "tee", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": ["not", "a", "name"], "type": "top", "subtype": "t-shirt", "color": "black", "formality": "any"}
+            {"name": "jeans", "type": "bottom", "subtype": "jeans", "color": "blue", "formality": "any"}
+            """));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getRow());
+    }
+
+    @Test
+    void stopsAtMalformedJsonKeepingTheRowsBeforeIt() throws IOException {
+        ImportResult result = importer(500, 100).importItems(user, json("""
+            [
+              {"name": "tee", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"},
+              {"name": "jeans", "type": "bottom", "subtype": "jeans",
+            """));
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getRow());
+        assertTrue(result.getErrors().get(0).getMessage().endsWith("import stopped"));
+    }
+
+    @Test
+    void stopsAfterMaxRows() throws IOException {
+        ImportResult result = importer(500, 2).importItems(user, json("""
+            {"name": "a", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": "b", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": "c", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": "d", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            """));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(List.of(3L), result.getErrors().stream().map(ImportRowError::getRow).toList());
+    }
+
+    @Test
+    void countsEveryRowOfAFailedBatch() throws IOException {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenReturn(new int[] { 1, 1 })
+            .thenThrow(new DataAccessResourceFailureException("down"));
+
+        ImportResult result = importer(2, 100).importItems(user, json("""
+            {"name": "a", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": "b", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": "c", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": "d", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            """));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(4L), result.getErrors().stream().map(ImportRowError::getRow).toList());
+        verify(clothingItemService, times(1)).wardrobeChanged(user);
+    }
+
+    @Test
+    void truncatesTheReportedErrors() throws IOException {
+        ImportResult result = importer(500, 100, 1).importItems(user, json("""
+            {"name": "", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": "", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"name": "", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            """));
+
+        assertEquals(3, result.getFailed());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.isErrorsTruncated());
+    }
+
+    @Test
+    void importsABinaryStreamAndReportsItsRowsTheSameWay() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WardrobeBinaryCodec.Writer writer = new WardrobeBinaryCodec.Writer(bytes);
+        writer.write(10, null, "tee", "top", "t-shirt", "black", "casual");
+        writer.write(11, null, "odd", "top", "toga", "black", "casual");
+        writer.write(12, null, "jeans", "bottom", "jeans", "blue", "any");
+        writer.flush();
+
+        ImportResult result = importer(500, 100).importBinary(user, new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(List.of(2L), result.getErrors().stream().map(ImportRowError::getRow).toList());
+    }
+
+    @Test
+    void rejectsABinaryStreamWithoutTheMagic() {
+        ImportResult result = importer(500, 100).importBinary(user, json("[]"));
+
+        assertEquals(0, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(1L, result.getErrors().get(0).getRow());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void rejectsRowsOfTheAllUsersExport() throws IOException {
+        ImportResult result = importer(500, 100).importItems(user, json("""
+            {"id": 1, "username": "other", "name": "tee", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"id": 2, "name": "jeans", "type": "bottom", "subtype": "jeans", "color": "blue", "formality": "any"}
+            """));
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(1L), result.getErrors().stream().map(ImportRowError::getRow).toList());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void rejectsBinaryRowsOfTheAllUsersExport() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WardrobeBinaryCodec.Writer writer = new WardrobeBinaryCodec.Writer(bytes);
+        writer.write(1, "other", "tee", "top", "t-shirt", "black", "casual");
+        writer.flush();
+
+        ImportResult result = importer(500, 100).importBinary(user, new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(0, result.getImported());
+        assertEquals(1, result.getFailed());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void restoresEveryRowIntoTheWardrobeOfItsUser() throws IOException {
+        User other = new User(2L, "other", null, null);
+        when(userRepository.findByUsername("someone")).thenReturn(Optional.of(user));
+        when(userRepository.findByUsername("other")).thenReturn(Optional.of(other));
+        when(userRepository.findByUsername("gone")).thenReturn(Optional.empty());
+        // the importer reuses its batch list, so the owner ids are copied out when the batch is written
+        List<Object> owners = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            batch.forEach(row -> owners.add(row[5]));
+            return new int[batch.size()];
+        });
+
+        ImportResult result = importer(500, 100).importAllUsers(json("""
+            {"id": 1, "username": "someone", "name": "tee", "type": "top", "subtype": "t-shirt", "color": "black", "formality": "casual"}
+            {"id": 2, "username": "other", "name": "jeans", "type": "bottom", "subtype": "jeans", "color": "blue", "formality": "any"}
+            {"id": 3, "username": "gone", "name": "boots", "type": "footwear", "subtype": "boots", "color": "black", "formality": "any"}
+            {"id": 4, "name": "polo", "type": "top", "subtype": "polo", "color": "white", "formality": "any"}
+            {"id": 5, "username": "other", "name": "cap", "type": "headwear", "subtype": "cap", "color": "black", "formality": "any"}
+            """));
+
+        assertEquals(3, result.getImported());
+        assertEquals(List.of(3L, 4L), result.getErrors().stream().map(ImportRowError::getRow).toList());
+        assertEquals("unknown user: gone", result.getErrors().get(0).getMessage());
+        assertEquals("username is required", result.getErrors().get(1).getMessage());
+
+        assertEquals(List.of(1L, 2L, 2L), owners);
+        verify(clothingItemService).wardrobeChanged(user);
+        verify(clothingItemService).wardrobeChanged(other);
+        // each username is looked up once per import
+        verify(userRepository, times(1)).findByUsername("other");
+    }
+
+    @Test
+    void restoresABinaryAllUsersExport() throws IOException {
+        User other = new User(2L, "other", null, null);
+        when(userRepository.findByUsername("other")).thenReturn(Optional.of(other));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WardrobeBinaryCodec.Writer writer = new WardrobeBinaryCodec.Writer(bytes);
+        writer.write(1, "other", "tee", "top", "t-shirt", "black", "casual");
+        writer.write(2, null, "jeans", "bottom", "jeans", "blue", "any");
+        writer.flush();
+
+        ImportResult result = importer(500, 100).importAllUsersBinary(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(2L), result.getErrors().stream().map(ImportRowError::getRow).toList());
+        verify(clothingItemService).wardrobeChanged(other);
+    }
+
+    private ClothingItemImporter importer(int batchSize, long maxRows) {
+        return importer(batchSize, maxRows, 100);
+    }
+
+    private ClothingItemImporter importer(int batchSize, long maxRows, int maxReportedErrors) {
+        return new ClothingItemImporter(jdbcTemplate, new ObjectMapper(), new ClothingItemValidator(RULES),
+            clothingItemService, userRepository, mock(PlatformTransactionManager.class), batchSize, maxRows, maxReportedErrors);
+    }
+
+    private static ByteArrayInputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
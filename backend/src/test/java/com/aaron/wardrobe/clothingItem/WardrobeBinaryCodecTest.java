@@ -0,0 +1,129 @@
+package com.aaron.wardrobe.clothingItem;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WardrobeBinaryCodecTest {
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WardrobeBinaryCodec.Writer writer = new WardrobeBinaryCodec.Writer(bytes);
+        writer.write(1, null, "plain tee", "top", "t-shirt", "black", "casual");
+        writer.write(Long.MAX_VALUE, "someone", "veste d'été ✓", "outerwear", "jacket", "olive", "any");
+        writer.write(3, "someone", "", "bottom", "jeans", null, "formal");
+        writer.flush();
+
+        WardrobeBinaryCodec.Reader reader = new WardrobeBinaryCodec.Reader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertItem(reader.next(), 1, "plain tee", "top", "t-shirt", "black", "casual");
+        assertNull(reader.getUsername());
+        assertItem(reader.next(), Long.MAX_VALUE, "veste d'été ✓", "outerwear", "jacket", "olive", "any");
+        assertEquals("someone", reader.getUsername());
+        assertItem(reader.next(), 3, "", "bottom", "jeans", null, "formal");
+        assertEquals("someone", reader.getUsername());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void readsAnEmptyStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new WardrobeBinaryCodec.Writer(bytes).flush();
+
+        WardrobeBinaryCodec.Reader reader = new WardrobeBinaryCodec.Reader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertNull(reader.next());
+    }
+
+    @Test
+    void skipsFieldsAppendedToARecord() throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream fields = new DataOutputStream(record);
+        fields.writeLong(7);
+        for (String value : new String[] { null, "tee", "top", "t-shirt", "white", "any", "a later field" }) {
+            writeString(fields, value);
+        }
+        fields.writeInt(42);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WardrobeBinaryCodec.Writer writer = new WardrobeBinaryCodec.Writer(bytes);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(record.size());
+        out.write(record.toByteArray());
+        writer.write(8, null, "jeans", "bottom", "jeans", "blue", "casual");
+        writer.flush();
+
+        WardrobeBinaryCodec.Reader reader = new WardrobeBinaryCodec.Reader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertItem(reader.next(), 7, "tee", "top", "t-shirt", "white", "any");
+        assertItem(reader.next(), 8, "jeans", "bottom", "jeans", "blue", "casual");
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsAStreamWithoutTheMagic() {
+        byte[] bytes = "{\"name\":\"tee\"}".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> new WardrobeBinaryCodec.Reader(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void rejectsATruncatedRecord() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WardrobeBinaryCodec.Writer writer = new WardrobeBinaryCodec.Writer(bytes);
+        writer.write(1, null, "tee", "top", "t-shirt", "black", "casual");
+        writer.flush();
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 3);
+
+        WardrobeBinaryCodec.Reader reader = new WardrobeBinaryCodec.Reader(new ByteArrayInputStream(truncated));
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void rejectsAFieldThatOverrunsItsRecord() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[] { 'W', 'B', 'X', '1' });
+        out.writeInt(12);
+        out.writeLong(1);
+        out.writeShort(-1);
+        out.writeShort(100); // the name claims more bytes than the record has
+
+        WardrobeBinaryCodec.Reader reader = new WardrobeBinaryCodec.Reader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void rejectsAFieldTooLongForTheFormat() throws IOException {
+        WardrobeBinaryCodec.Writer writer = new WardrobeBinaryCodec.Writer(new ByteArrayOutputStream());
+        String name = "x".repeat(Short.MAX_VALUE + 1);
+        assertThrows(IllegalArgumentException.class,
+            () -> writer.write(1, null, name, "top", "t-shirt", "black", "casual"));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void assertItem(ClothingItem item, long id, String name, String type, String subtype, String color,
+            String formality) {
+        assertNotNull(item);
+        assertEquals(id, item.getId());
+        assertEquals(name, item.getName());
+        assertEquals(type, item.getType());
+        assertEquals(subtype, item.getSubtype());
+        assertEquals(color, item.getColor());
+        assertEquals(formality, item.getFormality());
+        assertNull(item.getUser());
+    }
+}
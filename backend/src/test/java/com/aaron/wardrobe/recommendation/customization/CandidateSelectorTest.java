@@ -0,0 +1,186 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandidateSelectorTest {
+
+    private static final int TRIALS = 100_000;
+    private static final double TOLERANCE = 0.01;
+
+    @Test
+    void selectsNothingWithoutCandidates() {
+        CandidateSelector selector = new CandidateSelector();
+        assertEquals(-1, selector.select(new Random(1)));
+
+        selector.merge(new CandidateSelector(), new Random(1));
+        assertEquals(-1, selector.select(new Random(1)));
+    }
+
+    @Test
+    void drawsLargeTiesUniformly() {
+        int[] scores = { 3, 1, 1, 2, 1, 1, 4, 1, 1, 2, 1, 1, 5, 1 };
+        double[] frequencies = frequencies(scores, new int[0], new Random(1));
+
+        for (int i = 0; i < scores.length; i++) {
+            assertEquals(scores[i] == 1 ? 1.0 / 9 : 0, frequencies[i], TOLERANCE, "candidate " + i);
+        }
+    }
+
+    @Test
+    void matchesTheDocumentedSelection() {
+        // two best candidates topped up from eight second best ones, and a worse group that is never drawn
+        int[] scores = { 6, 6, 3, 4, 4, 6, 4, 3, 4, 4, 6, 4, 4, 4 };
+        assertSameDistribution(reference(scores, new Random(2)), frequencies(scores, new int[0], new Random(3)));
+    }
+
+    @Test
+    void mergedSelectorsMatchASingleSelector() {
+        // parts whose own best group is the overall second best or worse, and a part with only the worst scores
+        int[] scores = { 6, 6, 6, 4, 4, 4, 3, 4, 4, 6, 6, 4, 3, 4, 4, 3, 7, 7, 7, 4, 4, 4, 4, 4 };
+        int[][] splits = {
+            { 12 },
+            { 3, 6, 9 },
+            { 1, 2, 3, 5, 8, 13, 16, 19, 23 },
+            { 16 },
+        };
+
+        double[] single = frequencies(scores, new int[0], new Random(4));
+        assertSameDistribution(reference(scores, new Random(5)), single);
+        for (int[] split : splits) {
+            assertSameDistribution(single, frequencies(scores, split, new Random(6)));
+        }
+    }
+
+    @Test
+    void mergesLargeTiesUniformly() {
+        int[] scores = new int[40];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = i % 4 == 0 ? 2 : 1;
+        }
+        double[] frequencies = frequencies(scores, new int[] { 7, 8, 20, 33 }, new Random(7));
+
+        for (int i = 0; i < scores.length; i++) {
+            assertEquals(scores[i] == 1 ? 1.0 / 30 : 0, frequencies[i], TOLERANCE, "candidate " + i);
+        }
+    }
+
+    @Test
+    void reportsTheSelectedScore() {
+        int[] scores = { 5, 2, 9, 2, 7 };
+        Random random = new Random(8);
+        CandidateSelector selector = new CandidateSelector();
+        for (int trial = 0; trial < 1000; trial++) {
+            selector.reset();
+            for (int i = 0; i < scores.length; i++) {
+                selector.offer(i, scores[i], random);
+            }
+            int selected = selector.select(random);
+            assertEquals(scores[selected], selector.getSelectedScore());
+        }
+    }
+
+    /**
+     * @param splits are the start indexes of every part after the first, each offered to its own selector and
+     *        merged the way OutfitCustomizer merges parallel ranges; empty to offer everything to one selector
+     * @return how often each candidate was selected
+     */
+    private static double[] frequencies(int[] scores, int[] splits, Random random) {
+        int[] counts = new int[scores.length];
+        for (int trial = 0; trial < TRIALS; trial++) {
+            CandidateSelector merged = null;
+            int start = 0;
+            for (int part = 0; part <= splits.length; part++) {
+                int end = part < splits.length ? splits[part] : scores.length;
+                CandidateSelector selector = new CandidateSelector();
+                for (int i = start; i < end; i++) {
+                    selector.offer(i, scores[i], random);
+                }
+                if (merged == null) {
+                    merged = selector;
+                } else {
+                    merged.merge(selector, random);
+                }
+                start = end;
+            }
+            counts[merged.select(random)]++;
+        }
+        return toFrequencies(counts);
+    }
+
+    /**
+     * Draws the way the CandidateSelector class comment describes, keeping every candidate in lists
+     */
+    private static double[] reference(int[] scores, Random random) {
+        int best = Integer.MAX_VALUE;
+        for (int score : scores) {
+            best = Math.min(best, score);
+        }
+        int second = Integer.MAX_VALUE;
+        for (int score : scores) {
+            if (score > best) {
+                second = Math.min(second, score);
+            }
+        }
+
+        int[] counts = new int[scores.length];
+        for (int trial = 0; trial < TRIALS; trial++) {
+            List<Integer> bestGroup = new ArrayList<>();
+            List<Integer> secondGroup = new ArrayList<>();
+            for (int i = 0; i < scores.length; i++) {
+                if (scores[i] == best) {
+                    bestGroup.add(i);
+                } else if (scores[i] == second) {
+                    secondGroup.add(i);
+                }
+            }
+            Collections.shuffle(bestGroup, random);
+            Collections.shuffle(secondGroup, random);
+
+            List<Integer> pool = new ArrayList<>(bestGroup.subList(0, Math.min(5, bestGroup.size())));
+            for (int i = 0; pool.size() < 5 && i < secondGroup.size(); i++) {
+                pool.add(secondGroup.get(i));
+            }
+            Collections.shuffle(pool, random);
+            List<Integer> picks = pool.subList(0, Math.min(3, pool.size()));
+
+            int total = 1;
+            for (int pick : picks) {
+                total += scores[pick];
+            }
+            int weights = 0;
+            for (int pick : picks) {
+                weights += total - scores[pick];
+            }
+            int target = random.nextInt(weights);
+            for (int pick : picks) {
+                target -= total - scores[pick];
+                if (target < 0) {
+                    counts[pick]++;
+                    break;
+                }
+            }
+        }
+        return toFrequencies(counts);
+    }
+
+    private static double[] toFrequencies(int[] counts) {
+        double[] frequencies = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            frequencies[i] = (double) counts[i] / TRIALS;
+        }
+        return frequencies;
+    }
+
+    private static void assertSameDistribution(double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], TOLERANCE, "candidate " + i);
+        }
+    }
+}
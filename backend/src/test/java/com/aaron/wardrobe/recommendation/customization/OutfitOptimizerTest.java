@@ -0,0 +1,176 @@
+package com.aaron.wardrobe.recommendation.customization;
+
+import com.aaron.wardrobe.clothingItem.ClothingItem;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutfitOptimizerTest {
+
+    private static final List<String> REQUIRED_TYPES = List.of("top", "bottom", "footwear");
+    private static final List<String> OPTIONAL_TYPES = List.of("headwear", "outerwear");
+
+    private static RuleSet rules;
+
+    @BeforeAll
+    static void loadRules() throws IOException {
+        rules = RuleSet.loadFromClasspath();
+    }
+
+    @Test
+    void findsTheCheapestOutfitOfRequiredSlots() {
+        // wide enough to keep every partial outfit, so the search is exhaustive apart from pruning
+        OutfitOptimizer optimizer = new OutfitOptimizer(1000, Duration.ofSeconds(10));
+        Random random = new Random(1);
+        for (int trial = 0; trial < 300; trial++) {
+            Map<String, List<ClothingItem>> options = randomOptions(random, REQUIRED_TYPES, List.of());
+            double temp = 10 + random.nextInt(90);
+            String weather = randomWeather(random);
+
+            List<ClothingItem> outfit = optimizer.optimize(rules, options, OPTIONAL_TYPES, temp, weather);
+
+            assertEquals(REQUIRED_TYPES.size(), outfit.size(), "trial " + trial);
+            assertEquals(bruteForce(options, temp, weather), cost(outfit, temp, weather), "trial " + trial);
+        }
+    }
+
+    @Test
+    void findsTheCheapestOutfitWithOptionalSlots() {
+        OutfitOptimizer optimizer = new OutfitOptimizer(1000, Duration.ofSeconds(10));
+        Random random = new Random(2);
+        for (int trial = 0; trial < 300; trial++) {
+            Map<String, List<ClothingItem>> options = randomOptions(random, REQUIRED_TYPES, OPTIONAL_TYPES);
+            double temp = 10 + random.nextInt(90);
+            String weather = randomWeather(random);
+
+            List<ClothingItem> outfit = optimizer.optimize(rules, options, OPTIONAL_TYPES, temp, weather);
+
+            assertEquals(bruteForce(options, temp, weather), cost(outfit, temp, weather), "trial " + trial);
+        }
+    }
+
+    @Test
+    void aNarrowBeamNeverBeatsTheOptimum() {
+        OutfitOptimizer optimizer = new OutfitOptimizer(1, Duration.ofSeconds(10));
+        Random random = new Random(3);
+        for (int trial = 0; trial < 300; trial++) {
+            Map<String, List<ClothingItem>> options = randomOptions(random, REQUIRED_TYPES, List.of());
+            double temp = 10 + random.nextInt(90);
+            String weather = randomWeather(random);
+
+            List<ClothingItem> outfit = optimizer.optimize(rules, options, OPTIONAL_TYPES, temp, weather);
+
+            assertEquals(REQUIRED_TYPES.size(), outfit.size(), "trial " + trial);
+            assertTrue(cost(outfit, temp, weather) >= bruteForce(options, temp, weather), "trial " + trial);
+        }
+    }
+
+    @Test
+    void returnsNothingWithoutOptions() {
+        OutfitOptimizer optimizer = new OutfitOptimizer(16, Duration.ofMillis(25));
+        Map<String, List<ClothingItem>> options = new LinkedHashMap<>();
+        options.put("top", List.of());
+
+        assertTrue(optimizer.optimize(rules, options, OPTIONAL_TYPES, 70, randomWeather(new Random(4))).isEmpty());
+    }
+
+    /**
+     * Builds one to four random items per slot, required slots first as the optimizer orders them
+     */
+    private static Map<String, List<ClothingItem>> randomOptions(Random random, List<String> required,
+            List<String> optional) {
+        RuleVocabulary vocabulary = rules.getVocabulary();
+        Map<String, List<ClothingItem>> options = new LinkedHashMap<>();
+        long id = 1;
+        List<String> types = new ArrayList<>(required);
+        types.addAll(optional);
+        for (String type : types) {
+            List<ClothingItem> items = new ArrayList<>();
+            int count = 1 + random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                String subtype = vocabulary.subtypeName(random.nextInt(vocabulary.subtypeCount()));
+                String color = vocabulary.colorName(random.nextInt(vocabulary.colorCount()));
+                items.add(new ClothingItem(id, subtype + "-" + id, type, subtype, color, "any"));
+                id++;
+            }
+            options.put(type, items);
+        }
+        return options;
+    }
+
+    private static String randomWeather(Random random) {
+        RuleVocabulary vocabulary = rules.getVocabulary();
+        return vocabulary.weatherName(random.nextInt(vocabulary.weatherCount()));
+    }
+
+    /**
+     * @return the lowest cost of every outfit that takes one item of each required slot and, for each optional
+     *         slot, one of its items that passes the customizer's threshold, or none if no item does
+     */
+    private static int bruteForce(Map<String, List<ClothingItem>> options, double temp, String weather) {
+        return bruteForce(new ArrayList<>(options.entrySet()), 0, new ArrayList<>(), temp, weather);
+    }
+
+    private static int bruteForce(List<Map.Entry<String, List<ClothingItem>>> slots, int level,
+            List<ClothingItem> outfit, double temp, String weather) {
+        if (level == slots.size()) {
+            return cost(outfit, temp, weather);
+        }
+        boolean optional = OPTIONAL_TYPES.contains(slots.get(level).getKey());
+        int best = Integer.MAX_VALUE;
+        for (ClothingItem item : slots.get(level).getValue()) {
+            if (optional && !admissible(item, marginal(item, outfit, temp, weather), temp)) {
+                continue;
+            }
+            outfit.add(item);
+            best = Math.min(best, bruteForce(slots, level + 1, outfit, temp, weather));
+            outfit.remove(outfit.size() - 1);
+        }
+        if (best == Integer.MAX_VALUE) {
+            // only an optional slot without an admissible item can get here
+            best = bruteForce(slots, level + 1, outfit, temp, weather);
+        }
+        return best;
+    }
+
+    /**
+     * @return the total cost of an outfit, scoring each item against the items before it
+     */
+    private static int cost(List<ClothingItem> outfit, double temp, String weather) {
+        int cost = 0;
+        for (int i = 0; i < outfit.size(); i++) {
+            cost += marginal(outfit.get(i), outfit.subList(0, i), temp, weather);
+        }
+        return cost;
+    }
+
+    private static int marginal(ClothingItem item, List<ClothingItem> before, double temp, String weather) {
+        RuleVocabulary vocabulary = rules.getVocabulary();
+        int subtype = vocabulary.subtypeId(item.getSubtype());
+        int color = vocabulary.colorId(item.getColor());
+        int cost = rules.getScoreByTemperature().score(subtype, temp)
+            + rules.getScoreByWeather().score(subtype, vocabulary.weatherId(weather));
+        for (ClothingItem other : before) {
+            int otherSubtype = vocabulary.subtypeId(other.getSubtype());
+            int otherColor = vocabulary.colorId(other.getColor());
+            cost += rules.getScoreByCompatibility().pairScore(subtype, otherSubtype);
+            cost += rules.getScoreByColor().pairScore(color, otherColor)
+                | rules.getScoreByColor().pairScore(otherColor, color);
+        }
+        return cost;
+    }
+
+    private static boolean admissible(ClothingItem item, int marginal, double temp) {
+        return (temp <= 40 && !"cap".equals(item.getSubtype())) || marginal < 4;
+    }
+}
@@ -0,0 +1,97 @@
+package com.aaron.wardrobe.recommendation.customization.weatherScore;
+
+import com.aaron.wardrobe.metrics.PipelineMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherServiceTest {
+
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final WeatherProvider provider = location -> {
+        RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+        return new WeatherSnapshot(70, "sunny");
+    };
+
+    private WeatherService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void badCitiesLeaveTheCircuitClosed() {
+        service = service(Duration.ofMinutes(1));
+        failure.set(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+
+        for (int i = 0; i < 20; i++) {
+            String city = "Nowhereville " + i;
+            assertThrows(IllegalStateException.class, () -> service.getWeatherSnapshot(city));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, service.getCircuitState());
+
+        failure.set(null);
+        assertEquals(70, service.getWeatherSnapshot("Eugene").getTemperature());
+    }
+
+    @Test
+    void serverErrorsOpenTheCircuit() {
+        service = service(Duration.ofMinutes(1));
+        failure.set(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null));
+
+        for (int i = 0; i < 5; i++) {
+            String city = "City " + i;
+            assertThrows(IllegalStateException.class, () -> service.getWeatherSnapshot(city));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, service.getCircuitState());
+    }
+
+    @Test
+    void timeoutsOpenTheCircuit() {
+        service = service(Duration.ofMinutes(1));
+        failure.set(new ResourceAccessException("Read timed out"));
+
+        for (int i = 0; i < 5; i++) {
+            String city = "City " + i;
+            assertThrows(IllegalStateException.class, () -> service.getWeatherSnapshot(city));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, service.getCircuitState());
+    }
+
+    @Test
+    void aBadCityAsTheTrialCallClosesTheCircuit() throws InterruptedException {
+        service = service(Duration.ofMillis(50));
+        failure.set(new ResourceAccessException("Connection refused"));
+        for (int i = 0; i < 5; i++) {
+            String city = "City " + i;
+            assertThrows(IllegalStateException.class, () -> service.getWeatherSnapshot(city));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, service.getCircuitState());
+
+        Thread.sleep(100);
+        failure.set(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+        assertThrows(IllegalStateException.class, () -> service.getWeatherSnapshot("Nowhereville"));
+        assertEquals(CircuitBreaker.State.CLOSED, service.getCircuitState());
+    }
+
+    private WeatherService service(Duration openDuration) {
+        return new WeatherService(provider, new PipelineMetrics(new SimpleMeterRegistry(), false, false),
+            Duration.ofMinutes(10), Duration.ofHours(1), 1000, Duration.ofSeconds(2), 5, openDuration, 4);
+    }
+}